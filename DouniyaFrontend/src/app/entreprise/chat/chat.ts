@@ -12,7 +12,7 @@ import { EmployeService } from '../../services/auth/employe.service';
 import { AuthService } from '../../services/auth/auth.service';
 import { TranslationService, Language } from '../../services/translation/translation.service';
 import { NotificationCenterService } from '../../services/notification-center/notification-center.service';
-import { Conversation, Message, ChatNotification, Participant } from '../../models/chat.model';
+import { Conversation, Message, ChatNotification, ChatSyncResponse, Participant } from '../../models/chat.model';
 import { Subscription } from 'rxjs';
 import { EmployeSimple } from '../../models/auth.model';
 import { environment } from '../../../environments/environment';
@@ -46,6 +46,7 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
   messages: Message[] = [];
 
   newMessage = '';
+  private pendingSend: { conversationId: number; signature: string; key: string } | null = null;
   searchTerm = '';
 
   isLoading = false;
@@ -54,11 +55,11 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
 
   private targetConversationId: number | null = null;
 
-  // ── Polling ───────────────────────────────────────────────────────────────
-  private pollingTimer: ReturnType<typeof setInterval> | null = null;
-  private readonly POLL_INTERVAL = 3000; // 3 secondes
-  private isPollingMessages = false;
-  private isPollingConversations = false;
+  // ── Synchronisation (GET /api/chat/sync) ──────────────────────────────────
+  private syncToken: number | null = null;
+  private isSyncing = false;
+  private syncPending = false;
+  private initialSyncDone = false;
 
   // ── Dialog nouvelle conversation ──────────────────────────────────────────
   showNewConversationDialog = false;
@@ -191,9 +192,6 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
     this.setupWebSocketListeners();
     this.loadEmployes();
     this.chargerJitsiScript();
-
-    // Démarrer le polling automatique
-    this.startPolling();
   }
 
   ngAfterViewChecked(): void {
@@ -204,7 +202,6 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
   }
 
   ngOnDestroy(): void {
-    this.stopPolling();
     this.subscriptions.forEach(sub => sub.unsubscribe());
     // La connexion WebSocket reste active (gérée par NotificationCenterService)
     // pour continuer à recevoir messages/appels en dehors de la page chat.
@@ -213,94 +210,102 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
     this.detruireJitsiChat();
   }
 
-  // ── POLLING AUTOMATIQUE ───────────────────────────────────────────────────
-
-  private startPolling(): void {
-    this.stopPolling();
-    this.pollingTimer = setInterval(() => {
-      this.pollMessages();
-      this.pollConversationList();
-    }, this.POLL_INTERVAL);
-  }
+  // ── SYNCHRONISATION ───────────────────────────────────────────────────────
+  // Le temps réel arrive par STOMP ; ce qui a été manqué pendant une coupure
+  // est rattrapé par GET /api/chat/sync, à la connexion et à chaque RESYNC.
 
-  private stopPolling(): void {
-    if (this.pollingTimer) {
-      clearInterval(this.pollingTimer);
-      this.pollingTimer = null;
+  private requestSync(): void {
+    if (this.isSyncing) {
+      this.syncPending = true;
+      return;
     }
-  }
-
-  /**
-   * Récupère les messages récents de la conversation active
-   * et fusionne intelligemment (ajout, édition, suppression)
-   */
-  private pollMessages(): void {
-    if (!this.selectedConversation || this.isPollingMessages || this.isSendingMessage || this.isUploadingFile) return;
+    this.isSyncing = true;
+    this.syncPending = false;
+    const since = this.syncToken;
+
+    this.chatService.sync(since).subscribe({
+      next: (res) => {
+        this.isSyncing = false;
+
+        if (res.fullResync) {
+          this.syncToken = res.syncToken;
+          // Au premier chargement, la liste vient d'être chargée par ngOnInit
+          if (this.initialSyncDone) {
+            this.loadConversations();
+            if (this.selectedConversation) this.loadMessages(this.selectedConversation.id);
+          }
+          this.initialSyncDone = true;
+          // Rattraper les changements récents que le token ne couvre pas encore
+          this.requestSync();
+          return;
+        }
 
-    const conversationId = this.selectedConversation.id;
-    this.isPollingMessages = true;
+        this.initialSyncDone = true;
+        this.applySync(res);
+        this.syncToken = res.syncToken;
 
-    this.chatService.getMessages(conversationId, 0, 50).subscribe({
-      next: (page) => {
-        this.isPollingMessages = false;
-        if (this.selectedConversation?.id !== conversationId) return;
-
-        const freshMessages: Message[] = page.content.map((msg: any) => ({
-          id: msg.id,
-          senderId: msg.senderId,
-          senderName: msg.senderName,
-          senderAvatar: msg.senderAvatar,
-          content: msg.content,
-          timestamp: new Date(msg.createdAt || Date.now()),
-          isRead: msg.isRead,
-          isEdited: msg.isEdited || false,
-          type: (msg.type || 'TEXT').toUpperCase(),
-          fileUrl: msg.fileUrl,
-          fileName: msg.fileName,
-          conversationId: conversationId,
-          parentMessageId: msg.parentMessageId,
-          parentMessageContent: msg.parentMessageContent
-        })).reverse();
-
-        this.mergeMessages(freshMessages);
+        // Page pleine : continuer tant que le token avance
+        if ((res.hasMore && res.syncToken !== since) || this.syncPending) {
+          this.requestSync();
+        }
       },
       error: () => {
-        this.isPollingMessages = false;
+        this.isSyncing = false;
       }
     });
   }
 
   /**
-   * Fusionne les messages frais avec les messages locaux :
-   * - Ajoute les nouveaux
-   * - Met à jour le contenu des édités
-   * - Retire les supprimés
+   * Applique un lot de changements. Les changements récents peuvent être
+   * renvoyés par l'appel suivant : tout est fusionné par id (idempotent).
    */
-  private mergeMessages(freshMessages: Message[]): void {
-    const existingIds = new Set(this.messages.map(m => m.id));
-    const freshIds = new Set(freshMessages.map(m => m.id));
-    let hasNewMessages = false;
-
-    // 1) Ajouter les nouveaux messages
-    for (const msg of freshMessages) {
-      if (!existingIds.has(msg.id)) {
-        this.messages.push(msg);
-        hasNewMessages = true;
-
-        // Traduire le nouveau message si traduction active
-        if (this.isTranslationActive && msg.type === 'TEXT') {
-          this.translateSingleMessage(msg);
+  private applySync(res: ChatSyncResponse): void {
+    // 1) Conversations créées ou modifiées
+    for (const conv of res.conversations) {
+      const fresh = this.toConversation(conv);
+      const existing = this.conversations.find(c => c.id === fresh.id);
+      if (existing) {
+        // Ne pas écraser unreadCount si c'est la conversation sélectionnée
+        if (this.selectedConversation?.id !== fresh.id) {
+          existing.unreadCount = fresh.unreadCount;
         }
+        existing.name = fresh.name;
+        existing.lastMessage = fresh.lastMessage;
+        existing.lastMessageTime = fresh.lastMessageTime;
+        existing.isOnline = fresh.isOnline;
+        existing.participants = fresh.participants;
+      } else {
+        this.conversations.push(fresh);
       }
     }
 
-    // 2) Mettre à jour les messages édités
-    for (const msg of freshMessages) {
-      const existing = this.messages.find(m => m.id === msg.id);
-      if (existing && (existing.content !== msg.content || existing.isEdited !== msg.isEdited)) {
-        existing.content = msg.content;
-        existing.isEdited = msg.isEdited;
+    // 2) Conversations supprimées ou quittées
+    if (res.removedConversationIds.length > 0) {
+      const removed = new Set(res.removedConversationIds);
+      this.conversations = this.conversations.filter(c => !removed.has(c.id));
+      if (this.selectedConversation && removed.has(this.selectedConversation.id)) {
+        this.selectedConversation = null;
+        this.messages = [];
+        this.showMembersPanel = false;
+      }
+    }
 
+    // 3) Messages de la conversation ouverte : ajout ou mise à jour
+    const conversationId = this.selectedConversation?.id;
+    let hasNewMessages = false;
+    for (const msg of res.messages) {
+      if (msg.conversationId !== conversationId) continue;
+      const fresh = this.toMessage(msg, msg.conversationId);
+      const existing = this.messages.find(m => m.id === fresh.id);
+      if (!existing) {
+        this.messages.push(fresh);
+        hasNewMessages = true;
+        if (this.isTranslationActive && fresh.type === 'TEXT') {
+          this.translateSingleMessage(fresh);
+        }
+      } else if (existing.content !== fresh.content || existing.isEdited !== fresh.isEdited) {
+        existing.content = fresh.content;
+        existing.isEdited = fresh.isEdited;
         if (this.isTranslationActive && existing.type === 'TEXT') {
           this.translatedContents.delete(existing.id);
           this.skippedTranslation.delete(existing.id);
@@ -309,94 +314,69 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
       }
     }
 
-    // 3) Retirer les messages supprimés côté serveur
-    const beforeCount = this.messages.length;
-    this.messages = this.messages.filter(m => freshIds.has(m.id));
-    if (this.messages.length !== beforeCount) {
-      // Nettoyer les traductions des messages supprimés
-      for (const id of [...this.translatedContents.keys()]) {
-        if (!freshIds.has(id)) {
-          this.translatedContents.delete(id);
-          this.skippedTranslation.delete(id);
-        }
+    // 4) Messages supprimés
+    if (res.deletedMessageIds.length > 0) {
+      const deleted = new Set(res.deletedMessageIds);
+      this.messages = this.messages.filter(m => !deleted.has(m.id));
+      for (const id of deleted) {
+        this.translatedContents.delete(id);
+        this.skippedTranslation.delete(id);
       }
     }
 
-    // 4) Scroll si nouveaux messages
-    if (hasNewMessages) {
+    if (hasNewMessages && conversationId) {
+      this.messages.sort((a, b) => a.id - b.id);
+      this.chatService.markAsRead(conversationId).subscribe();
       this.shouldScrollToBottom = true;
     }
-  }
-
-  /**
-   * Met à jour la sidebar : unreadCount, lastMessage, ordre
-   */
-  private pollConversationList(): void {
-    if (this.isPollingConversations) return;
-    this.isPollingConversations = true;
 
-    this.chatService.getConversations().subscribe({
-      next: (page) => {
-        this.isPollingConversations = false;
-
-        const freshConversations: Conversation[] = page.content.map((conv: any) => ({
-          id: conv.id,
-          name: conv.name,
-          avatar: conv.avatar || this.getInitials(conv.name),
-          lastMessage: conv.lastMessage?.content || '',
-          lastMessageTime: conv.lastMessage?.createdAt
-            ? new Date(conv.lastMessage.createdAt)
-            : new Date(conv.updatedAt || Date.now()),
-          unreadCount: conv.unreadCount || 0,
-          isOnline: conv.isOnline || false,
-          isGroup: conv.isGroup,
-          participants: conv.participants || []
-        }));
-
-        // Mettre à jour sans perdre la sélection
-        for (const fresh of freshConversations) {
-          const existing = this.conversations.find(c => c.id === fresh.id);
-          if (existing) {
-            // Ne pas écraser unreadCount si c'est la conversation sélectionnée
-            if (this.selectedConversation?.id !== fresh.id) {
-              existing.unreadCount = fresh.unreadCount;
-            }
-            existing.lastMessage = fresh.lastMessage;
-            existing.lastMessageTime = fresh.lastMessageTime;
-            existing.isOnline = fresh.isOnline;
-            existing.participants = fresh.participants;
-          } else {
-            // Nouvelle conversation apparue
-            this.conversations.push(fresh);
-          }
-        }
-
-        // Retirer les conversations supprimées
-        const freshIds = new Set(freshConversations.map(c => c.id));
-        this.conversations = this.conversations.filter(c => freshIds.has(c.id));
-
-        // Trier par lastMessageTime desc
-        this.conversations.sort((a, b) => {
-          const ta = a.lastMessageTime ? new Date(a.lastMessageTime).getTime() : 0;
-          const tb = b.lastMessageTime ? new Date(b.lastMessageTime).getTime() : 0;
-          return tb - ta;
-        });
+    // Trier par lastMessageTime desc
+    this.conversations.sort((a, b) => {
+      const ta = a.lastMessageTime ? new Date(a.lastMessageTime).getTime() : 0;
+      const tb = b.lastMessageTime ? new Date(b.lastMessageTime).getTime() : 0;
+      return tb - ta;
+    });
 
-        this.filteredConversations = this.searchTerm.trim()
-          ? this.conversations.filter(c => c.name.toLowerCase().includes(this.searchTerm.toLowerCase()))
-          : [...this.conversations];
+    this.filteredConversations = this.searchTerm.trim()
+      ? this.conversations.filter(c => c.name.toLowerCase().includes(this.searchTerm.toLowerCase()))
+      : [...this.conversations];
+  }
+
+  // eslint-disable-next-line @typescript-eslint/no-explicit-any
+  private toConversation(conv: any): Conversation {
+    return {
+      id: conv.id,
+      name: conv.name,
+      avatar: conv.avatar || this.getInitials(conv.name),
+      lastMessage: conv.lastMessage?.content || '',
+      lastMessageTime: conv.lastMessage?.createdAt
+        ? new Date(conv.lastMessage.createdAt)
+        : new Date(conv.updatedAt || Date.now()),
+      unreadCount: conv.unreadCount || 0,
+      isOnline: conv.isOnline || false,
+      isGroup: conv.isGroup,
+      participants: conv.participants || []
+    };
+  }
 
-        // Vérifier si la conversation sélectionnée a été supprimée
-        if (this.selectedConversation && !freshIds.has(this.selectedConversation.id)) {
-          this.selectedConversation = null;
-          this.messages = [];
-          this.showMembersPanel = false;
-        }
-      },
-      error: () => {
-        this.isPollingConversations = false;
-      }
-    });
+  // eslint-disable-next-line @typescript-eslint/no-explicit-any
+  private toMessage(msg: any, conversationId: number): Message {
+    return {
+      id: msg.id,
+      senderId: msg.senderId,
+      senderName: msg.senderName,
+      senderAvatar: msg.senderAvatar,
+      content: msg.content,
+      timestamp: new Date(msg.createdAt || Date.now()),
+      isRead: msg.isRead,
+      isEdited: msg.isEdited || false,
+      type: (msg.type || 'TEXT').toUpperCase(),
+      fileUrl: msg.fileUrl,
+      fileName: msg.fileName,
+      conversationId: conversationId,
+      parentMessageId: msg.parentMessageId,
+      parentMessageContent: msg.parentMessageContent
+    };
   }
 
   // ── Fermer menus au clic extérieur ────────────────────────────────────────
@@ -419,19 +399,7 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
     this.isLoading = true;
     const sub = this.chatService.getConversations().subscribe({
       next: (page) => {
-        this.conversations = page.content.map((conv: any) => ({
-          id: conv.id,
-          name: conv.name,
-          avatar: conv.avatar || this.getInitials(conv.name),
-          lastMessage: conv.lastMessage?.content || '',
-          lastMessageTime: conv.lastMessage?.createdAt
-            ? new Date(conv.lastMessage.createdAt)
-            : new Date(conv.updatedAt || Date.now()),
-          unreadCount: conv.unreadCount || 0,
-          isOnline: conv.isOnline || false,
-          isGroup: conv.isGroup,
-          participants: conv.participants || []
-        }));
+        this.conversations = page.content.map((conv: any) => this.toConversation(conv));
         this.filteredConversations = [...this.conversations];
         this.isLoading = false;
 
@@ -475,22 +443,7 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
   loadMessages(conversationId: number): void {
     const sub = this.chatService.getMessages(conversationId).subscribe({
       next: (page) => {
-        this.messages = page.content.map((msg: any) => ({
-          id: msg.id,
-          senderId: msg.senderId,
-          senderName: msg.senderName,
-          senderAvatar: msg.senderAvatar,
-          content: msg.content,
-          timestamp: new Date(msg.createdAt || Date.now()),
-          isRead: msg.isRead,
-          isEdited: msg.isEdited || false,
-          type: (msg.type || 'TEXT').toUpperCase(),
-          fileUrl: msg.fileUrl,
-          fileName: msg.fileName,
-          conversationId: conversationId,
-          parentMessageId: msg.parentMessageId,
-          parentMessageContent: msg.parentMessageContent
-        })).reverse();
+        this.messages = page.content.map((msg: any) => this.toMessage(msg, conversationId)).reverse();
 
         this.chatService.markAsRead(conversationId).subscribe();
         this.shouldScrollToBottom = true;
@@ -513,8 +466,15 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
     this.chatService.connect();
     const sub = this.chatService.isConnected$.subscribe(connected => {
       this.isConnected = connected;
-      if (connected && this.selectedConversation) {
-        this.chatService.subscribeToConversation(this.selectedConversation.id);
+      if (connected) {
+        // Temps réel : la synchronisation suit l'indice RESYNC, reçu une fois
+        // les abonnements en place ; sans WebSocket, un seul chargement ici
+        if (!this.chatService.isRealWebSocket) {
+          this.requestSync();
+        }
+        if (this.selectedConversation) {
+          this.chatService.subscribeToConversation(this.selectedConversation.id);
+        }
       }
     });
     this.subscriptions.push(sub);
@@ -550,6 +510,12 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
       next: (notification: ChatNotification) => this.handleCallStarted(notification)
     });
     this.subscriptions.push(callStartedSub);
+
+    // Reconnexion : rattraper les événements manqués pendant la coupure
+    const resyncSub = this.chatService.onResync$.subscribe({
+      next: () => this.requestSync()
+    });
+    this.subscriptions.push(resyncSub);
   }
 
   handleCallStarted(notification: ChatNotification): void {
@@ -926,15 +892,41 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
     }
   }
 
+  // Clé d'idempotence du message en cours de composition : générée une fois,
+  // réutilisée par les renvois du même message après un échec (réponse perdue,
+  // timeout), remplacée dès que le message ou la conversation change
+  private idempotencyKeyFor(conversationId: number, signature: string): string | undefined {
+    const pending = this.pendingSend;
+    if (pending && pending.conversationId === conversationId && pending.signature === signature) {
+      return pending.key;
+    }
+    const key = typeof crypto !== 'undefined' && 'randomUUID' in crypto
+      ? crypto.randomUUID()
+      : undefined;
+    this.pendingSend = key ? { conversationId, signature, key } : null;
+    return key;
+  }
+
+  private clearIdempotencyKey(conversationId: number, signature: string): void {
+    if (this.pendingSend?.conversationId === conversationId && this.pendingSend.signature === signature) {
+      this.pendingSend = null;
+    }
+  }
+
   private sendTextMessage(content: string): void {
     if (!this.selectedConversation) return;
     this.newMessage = '';
     this.isSendingMessage = true;
 
+    const conversationId = this.selectedConversation.id;
+    const signature = `TEXT:${content}`;
+    const idempotencyKey = this.idempotencyKeyFor(conversationId, signature);
+
     const sub = this.chatService.sendMessage(
-      this.selectedConversation.id, content, 'TEXT'
+      conversationId, content, 'TEXT', undefined, undefined, undefined, idempotencyKey
     ).subscribe({
       next: (response) => {
+        this.clearIdempotencyKey(conversationId, signature);
         const msgData = response.data;
         const message: Message = {
           id: msgData.id,
@@ -947,7 +939,7 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
           type: 'TEXT',
           conversationId: this.selectedConversation!.id
         };
-        // Ajouter seulement si pas déjà présent (évite doublon avec polling)
+        // Ajouter seulement si pas déjà présent (évite doublon avec la notification STOMP)
         if (!this.messages.find(m => m.id === message.id)) {
           this.messages.push(message);
         }
@@ -973,6 +965,8 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
     const file = this.selectedFile;
     const caption = this.newMessage.trim();
     const conversationId = this.selectedConversation.id;
+    const signature = `FILE:${file.name}:${file.size}:${file.lastModified}:${caption}`;
+    const idempotencyKey = this.idempotencyKeyFor(conversationId, signature);
 
     this.isUploadingFile = true;
     this.isSendingMessage = true;
@@ -985,9 +979,10 @@ export class Chat implements OnInit, OnDestroy, AfterViewChecked {
 
         const msgSub = this.chatService.sendMessage(
           conversationId, caption || file.name, msgType,
-          fileData.fileUrl, fileData.filename
+          fileData.fileUrl, fileData.filename, undefined, idempotencyKey
         ).subscribe({
           next: (response) => {
+            this.clearIdempotencyKey(conversationId, signature);
             const msgData = response.data;
             const message: Message = {
               id: msgData.id,
@@ -57,6 +57,20 @@ export interface ChatNotification {
   };
   callLink?: string;
   callType?: string;
+  syncToken?: number;
+}
+
+/** Réponse de GET /api/chat/sync : changements depuis le dernier syncToken. */
+export interface ChatSyncResponse {
+  syncToken: number;
+  hasMore: boolean;
+  fullResync: boolean;
+  // eslint-disable-next-line @typescript-eslint/no-explicit-any
+  conversations: any[];
+  // eslint-disable-next-line @typescript-eslint/no-explicit-any
+  messages: any[];
+  deletedMessageIds: number[];
+  removedConversationIds: number[];
 }
 
 export interface ApiResponse<T> {
@@ -1,8 +1,8 @@
 import { Injectable, NgZone } from '@angular/core';
-import { HttpClient, HttpParams } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable, BehaviorSubject, Subject } from 'rxjs';
 import { environment } from '../../../environments/environment';
-import { ApiResponse, ChatNotification, Conversation, Message } from '../../models/chat.model';
+import { ApiResponse, ChatNotification, ChatSyncResponse, Conversation, Message } from '../../models/chat.model';
 
 @Injectable({
   providedIn: 'root'
@@ -10,6 +10,16 @@ import { ApiResponse, ChatNotification, Conversation, Message } from '../../mode
 export class ChatService {
   private apiUrl = environment.apiUrl + '/chat';
   private wsUrl  = environment.apiUrl.replace('/api', '') + '/ws';
+  // Endpoint WebSocket natif (compression permessage-deflate), SockJS en secours
+  private nativeWsUrl = this.wsUrl.replace(/^http/, 'ws') + '-native';
+  private useNativeWebSocket = typeof WebSocket !== 'undefined';
+  // Échecs consécutifs de la poignée de main native avant de passer à SockJS
+  // (une coupure réseau passagère ne doit pas suffire)
+  private static readonly NATIVE_MAX_HANDSHAKE_FAILURES = 3;
+  private static readonly RECONNECT_DELAY_MS = 5000;
+  private static readonly NATIVE_RETRY_BASE_DELAY_MS = 1000;
+  private nativeHandshakeFailures = 0;
+  private socketConnected = false;
 
   private isConnectedSubject        = new BehaviorSubject<boolean>(false);
   public  isConnected$              = this.isConnectedSubject.asObservable();
@@ -25,6 +35,9 @@ export class ChatService {
   public  onMessageDeleted$         = this.messageDeletedSubject.asObservable();
   private callStartedSubject        = new Subject<ChatNotification>();
   public  onCallStarted$            = this.callStartedSubject.asObservable();
+  // Indice RESYNC : réponse du serveur à l'abonnement /app/chat.sync, à chaque (re)connexion
+  private resyncSubject             = new Subject<ChatNotification>();
+  public  onResync$                 = this.resyncSubject.asObservable();
 
   /** true uniquement si STOMP est réellement connecté (pas le fallback) */
   private realWebSocket = false;
@@ -59,8 +72,19 @@ export class ChatService {
     );
   }
 
-  searchConversations(searchTerm: string): Observable<Conversation[]> {
-    const params = new HttpParams().set('q', searchTerm);
+  /** Changements depuis since (absent = resynchronisation complète). */
+  sync(since?: number | null, limit?: number): Observable<ChatSyncResponse> {
+    let params = new HttpParams();
+    if (since != null) params = params.set('since', since.toString());
+    if (limit)         params = params.set('limit', limit.toString());
+    return this.http.get<ChatSyncResponse>(`${this.apiUrl}/sync`, { params });
+  }
+
+  /** Page suivante : before = id de la dernière conversation reçue */
+  searchConversations(searchTerm: string, before?: number | null, limit?: number): Observable<Conversation[]> {
+    let params = new HttpParams().set('q', searchTerm);
+    if (before != null) params = params.set('before', before.toString());
+    if (limit)          params = params.set('limit', limit.toString());
     return this.http.get<Conversation[]>(`${this.apiUrl}/conversations/search`, { params });
   }
 
@@ -157,7 +181,8 @@ export class ChatService {
     type = 'TEXT',
     fileUrl?: string,
     fileName?: string,
-    parentMessageId?: number
+    parentMessageId?: number,
+    idempotencyKey?: string
   ): Observable<ApiResponse<Message>> {
     let params = new HttpParams()
       .set('content', content)
@@ -165,10 +190,15 @@ export class ChatService {
     if (fileUrl)         params = params.set('fileUrl', fileUrl);
     if (fileName)        params = params.set('fileName', fileName);
     if (parentMessageId) params = params.set('parentMessageId', parentMessageId.toString());
+    // Clé fournie par l'appelant, identique pour tous les renvois d'un même
+    // message : le serveur renvoie alors le message déjà créé au lieu d'un doublon
+    const headers = idempotencyKey
+      ? new HttpHeaders({ 'Idempotency-Key': idempotencyKey })
+      : undefined;
     return this.http.post<ApiResponse<Message>>(
       `${this.apiUrl}/conversations/${conversationId}/messages`,
       null,
-      { params }
+      { params, headers }
     );
   }
 
@@ -243,15 +273,23 @@ export class ChatService {
     const token = localStorage.getItem('accessToken');
 
     this.stompClient = new Client({
-      webSocketFactory: () => new SockJS(this.wsUrl),
+      webSocketFactory: () => {
+        this.socketConnected = false;
+        return this.useNativeWebSocket
+          ? new WebSocket(this.nativeWsUrl)
+          : new SockJS(this.wsUrl);
+      },
       connectHeaders: token ? { Authorization: `Bearer ${token}` } : {},
-      reconnectDelay: 5000,
+      reconnectDelay: ChatService.RECONNECT_DELAY_MS,
       heartbeatIncoming: 4000,
       heartbeatOutgoing: 4000,
 
       onConnect: () => {
         this.subscribedConversations.clear();
         this.realWebSocket = true;
+        this.socketConnected = true;
+        this.nativeHandshakeFailures = 0;
+        this.stompClient.reconnectDelay = ChatService.RECONNECT_DELAY_MS;
 
         this.ngZone.run(() => {
           this.isConnectedSubject.next(true);
@@ -280,14 +318,31 @@ export class ChatService {
           } catch { /* ignore */ }
         });
 
-        this.stompClient.subscribe('/topic/public', (msg: { body: string }) => {
+        // Présence des contacts : changements sur la queue personnelle,
+        // puis un instantané complet en réponse à l'abonnement /app/presence
+        const onPresence = (msg: { body: string }) => {
           try {
-            const notif: ChatNotification = JSON.parse(msg.body);
-            if (notif.type === 'USER_ONLINE' || notif.type === 'USER_OFFLINE') {
-              this.ngZone.run(() => {
-                this.userStatusChangeSubject.next(notif);
+            const presence: { users?: Record<string, boolean> } = JSON.parse(msg.body);
+            this.ngZone.run(() => {
+              Object.entries(presence.users ?? {}).forEach(([username, online]) => {
+                this.userStatusChangeSubject.next({
+                  type: online ? 'USER_ONLINE' : 'USER_OFFLINE',
+                  username
+                } as ChatNotification);
               });
-            }
+            });
+          } catch { /* ignore */ }
+        };
+        this.stompClient.subscribe('/user/queue/presence', onPresence);
+        this.stompClient.subscribe('/app/presence', onPresence);
+
+        // En dernier : le serveur traite les trames de la session dans l'ordre,
+        // la réponse RESYNC arrive une fois tous les abonnements ci-dessus
+        // (et ceux des conversations ouvertes) enregistrés
+        this.stompClient.subscribe('/app/chat.sync', (msg: { body: string }) => {
+          try {
+            const notif: ChatNotification = JSON.parse(msg.body);
+            this.ngZone.run(() => this.resyncSubject.next(notif));
           } catch { /* ignore */ }
         });
       },
@@ -302,6 +357,22 @@ export class ChatService {
       },
       onWebSocketError: () => {
         this.realWebSocket = false;
+        if (this.useNativeWebSocket) {
+          // Coupure d'une connexion établie : reconnexion native normale
+          if (this.socketConnected) return;
+
+          // Poignée de main refusée : nouvel essai natif avec délai croissant,
+          // SockJS seulement après plusieurs échecs (proxy bloquant WebSocket)
+          this.nativeHandshakeFailures++;
+          if (this.nativeHandshakeFailures >= ChatService.NATIVE_MAX_HANDSHAKE_FAILURES) {
+            this.useNativeWebSocket = false;
+            this.stompClient.reconnectDelay = ChatService.RECONNECT_DELAY_MS;
+          } else {
+            this.stompClient.reconnectDelay =
+              ChatService.NATIVE_RETRY_BASE_DELAY_MS * 2 ** (this.nativeHandshakeFailures - 1);
+          }
+          return;
+        }
         this.fallbackConnect();
       }
     });
@@ -312,7 +383,7 @@ export class ChatService {
   private fallbackConnect(): void {
     this.realWebSocket = false;
     console.warn(
-      '⚠️ WebSocket indisponible → polling activé automatiquement.\n' +
+      '⚠️ WebSocket indisponible → pas de temps réel, synchronisation au chargement uniquement.\n' +
       '   Pour le temps réel natif :\n' +
       '   npm install @stomp/stompjs sockjs-client\n' +
       '   npm install --save-dev @types/sockjs-client'
@@ -334,7 +405,7 @@ export class ChatService {
     if (!this.stompClient?.active || this.subscribedConversations.has(conversationId)) return;
 
     this.stompClient.subscribe(
-      `/topic/conversation/${conversationId}`,
+      `/topic/conversation.${conversationId}`,
       (msg: { body: string }) => {
         try {
           const notif: ChatNotification = JSON.parse(msg.body);
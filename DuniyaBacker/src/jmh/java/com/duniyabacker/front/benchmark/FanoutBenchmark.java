@@ -0,0 +1,95 @@
+package com.duniyabacker.front.benchmark;
+
+import com.duniyabacker.front.dto.response.ChatNotification;
+import com.duniyabacker.front.dto.response.MessageResponse;
+import com.duniyabacker.front.service.StompBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diffusion d'un NEW_MESSAGE à la queue personnelle de 2, 50 et 500
+ * destinataires : charge utile sérialisée une fois (StompBroadcaster),
+ * comparée à convertAndSendToUser(objet), qui relance Jackson à chaque
+ * destinataire. Le canal ne fait que retenir le dernier message.
+ *
+ * Octets alloués par diffusion : colonne gc.alloc.rate.norm (profileur gc).
+ * ./gradlew jmh -Pjmh.includes=FanoutBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FanoutBenchmark {
+
+    private static final String DESTINATION = "/queue/messages";
+
+    @Param({"2", "50", "500"})
+    private int recipients;
+
+    private List<String> usernames;
+    private ChatNotification notification;
+
+    private StompBroadcaster broadcaster;
+    private SimpMessagingTemplate legacyTemplate;
+
+    private volatile Message<?> lastSent;
+
+    @Setup
+    public void setUp() {
+        usernames = new ArrayList<>();
+        for (int i = 0; i < recipients; i++) {
+            usernames.add("membre-" + i);
+        }
+
+        notification = ChatNotification.builder()
+                .type("NEW_MESSAGE")
+                .conversationId(42L)
+                .message(MessageResponse.builder()
+                        .id(1_000L)
+                        .content("Bonjour à tous, la réunion de demain est déplacée à 10h.")
+                        .type("TEXT")
+                        .createdAt(LocalDateTime.now())
+                        .senderId(7L)
+                        .senderName("Awa Traoré")
+                        .conversationId(42L)
+                        .build())
+                .syncToken(123_456L)
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        MessageChannel channel = (message, timeout) -> {
+            lastSent = message;
+            return true;
+        };
+
+        broadcaster = new StompBroadcaster(new SimpMessagingTemplate(channel), objectMapper);
+
+        legacyTemplate = new SimpMessagingTemplate(channel);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        legacyTemplate.setMessageConverter(converter);
+    }
+
+    @Benchmark
+    public int encodeOnce() {
+        return broadcaster.sendToUsers(usernames, DESTINATION, broadcaster.encode(notification));
+    }
+
+    // Référence : sérialisation par destinataire (avant EncodedPayload)
+    @Benchmark
+    public Message<?> convertPerRecipient() {
+        for (String username : usernames) {
+            legacyTemplate.convertAndSendToUser(username, DESTINATION, notification);
+        }
+        return lastSent;
+    }
+}
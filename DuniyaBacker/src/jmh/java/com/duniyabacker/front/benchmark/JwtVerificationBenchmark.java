@@ -0,0 +1,71 @@
+package com.duniyabacker.front.benchmark;
+
+import com.duniyabacker.front.security.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vérification du JWT faite par JwtAuthenticationFilter à chaque requête :
+ * token servi par le cache des tokens vérifiés (SHA-256 + lecture du cache),
+ * comparé à un parsing complet (décodage Base64, JSON, HMAC) à chaque appel.
+ *
+ * ./gradlew jmh -Pjmh.includes=JwtVerificationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class JwtVerificationBenchmark {
+
+    private JwtService cachedService;
+    private JwtService uncachedService;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        cachedService = jwtService(10_000);
+        uncachedService = jwtService(0);
+
+        token = cachedService.generateToken(User.withUsername("alice@duniya.test")
+                .password("secret")
+                .authorities(List.of())
+                .build());
+    }
+
+    @Benchmark
+    public Claims cached() {
+        return cachedService.parseVerifiedClaims(token);
+    }
+
+    // Référence : parsing et vérification HMAC à chaque requête
+    @Benchmark
+    public Claims uncached() {
+        return uncachedService.parseVerifiedClaims(token);
+    }
+
+    // Service configuré comme par Spring (@Value puis @PostConstruct)
+    private static JwtService jwtService(int verifiedCacheMaxSize) throws Exception {
+        JwtService service = new JwtService();
+        set(service, "secretKey", Base64.getEncoder().encodeToString(new byte[32]));
+        set(service, "jwtExpiration", 86_400_000L);
+        set(service, "refreshExpiration", 604_800_000L);
+        set(service, "verifiedCacheMaxSize", verifiedCacheMaxSize);
+
+        Method init = JwtService.class.getDeclaredMethod("initSigningKey");
+        init.setAccessible(true);
+        init.invoke(service);
+        return service;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,95 @@
+package com.duniyabacker.front.benchmark;
+
+import com.duniyabacker.front.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opérations sur un Set<User> de participants (Conversation.participants) à
+ * 10, 100 et 1000 membres : hashCode basé sur l'uuid, comparé à l'ancien
+ * hashCode constant qui ramenait add/contains/remove à un parcours linéaire.
+ *
+ * ./gradlew jmh -Pjmh.includes=ParticipantSetBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ParticipantSetBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int members;
+
+    private Set<User> participants;
+    private Set<ConstantHashUser> legacyParticipants;
+
+    private User present;
+    private User absent;
+    private ConstantHashUser legacyPresent;
+    private ConstantHashUser legacyAbsent;
+
+    @Setup
+    public void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            users.add(new User());
+        }
+
+        participants = new HashSet<>(users);
+        legacyParticipants = new HashSet<>();
+        users.forEach(u -> legacyParticipants.add(new ConstantHashUser(u.getUuid())));
+
+        present = users.get(members / 2);
+        absent = new User();
+        legacyPresent = new ConstantHashUser(present.getUuid());
+        legacyAbsent = new ConstantHashUser(absent.getUuid());
+    }
+
+    // =========================================================================
+    // hashCode basé sur l'uuid
+    // =========================================================================
+
+    @Benchmark
+    public boolean contains() {
+        return participants.contains(present);
+    }
+
+    @Benchmark
+    public void addRemove(Blackhole bh) {
+        bh.consume(participants.add(absent));
+        bh.consume(participants.remove(absent));
+    }
+
+    // =========================================================================
+    // Référence : hashCode constant (identité avant correction)
+    // =========================================================================
+
+    @Benchmark
+    public boolean legacyContains() {
+        return legacyParticipants.contains(legacyPresent);
+    }
+
+    @Benchmark
+    public void legacyAddRemove(Blackhole bh) {
+        bh.consume(legacyParticipants.add(legacyAbsent));
+        bh.consume(legacyParticipants.remove(legacyAbsent));
+    }
+
+    /** Égalité sur l'uuid mais hashCode constant, comme l'ancienne entité. */
+    private record ConstantHashUser(String uuid) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ConstantHashUser other && uuid.equals(other.uuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+}
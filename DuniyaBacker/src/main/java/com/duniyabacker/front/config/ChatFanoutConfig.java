@@ -0,0 +1,42 @@
+package com.duniyabacker.front.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool dédié à la diffusion WebSocket des notifications de chat, pour que
+ * l'envoi à de gros groupes ne retienne ni la transaction ni le thread
+ * HTTP de l'expéditeur.
+ */
+@Configuration
+public class ChatFanoutConfig {
+
+    public static final String CHAT_FANOUT_EXECUTOR = "chatFanoutExecutor";
+
+    @Value("${app.chat.fanout.core-pool-size:2}")
+    private int corePoolSize;
+
+    @Value("${app.chat.fanout.max-pool-size:8}")
+    private int maxPoolSize;
+
+    @Value("${app.chat.fanout.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Bean(name = CHAT_FANOUT_EXECUTOR)
+    public ThreadPoolTaskExecutor chatFanoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chat-fanout-");
+        // File pleine : l'appelant diffuse lui-même plutôt que de perdre la notification
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -0,0 +1,32 @@
+package com.duniyabacker.front.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Planificateur de l'application : tâches @Scheduled, fins de frappe
+ * différées et anti-rebond de présence. Le nom "taskScheduler" est celui
+ * que @EnableScheduling recherche ; sans lui, les tâches @Scheduled
+ * partageraient le scheduler des heartbeats STOMP.
+ */
+@Configuration
+public class ChatSchedulerConfig {
+
+    public static final String CHAT_TASK_SCHEDULER = "taskScheduler";
+
+    @Value("${app.scheduler.pool-size:4}")
+    private int poolSize;
+
+    @Bean(name = CHAT_TASK_SCHEDULER)
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("app-scheduler-");
+        // Les publications différées sont souvent annulées : pas de tâches mortes en file
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
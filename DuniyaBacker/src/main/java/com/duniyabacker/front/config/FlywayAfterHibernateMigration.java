@@ -0,0 +1,35 @@
+package com.duniyabacker.front.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applique les migrations de db/migration une fois le schéma mis à jour par
+ * Hibernate, et avant l'ouverture du serveur HTTP. Sur une base existante
+ * sans historique Flyway, la version 0 sert de référence (baseline).
+ * Désactivé avec Flyway (profil h2 des tests : pas de bean Flyway).
+ */
+@Component
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "true", matchIfMissing = true)
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class FlywayAfterHibernateMigration {
+
+    private final Flyway flyway;
+
+    @PostConstruct
+    public void migrate() {
+        MigrateResult result = flyway.migrate();
+        if (result.migrationsExecuted > 0) {
+            log.info("Flyway : {} migration(s) appliquée(s), schéma en version {}",
+                    result.migrationsExecuted, result.targetSchemaVersion);
+        }
+    }
+}
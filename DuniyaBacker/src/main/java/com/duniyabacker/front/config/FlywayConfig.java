@@ -0,0 +1,21 @@
+package com.duniyabacker.front.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Le schéma reste créé par Hibernate (ddl-auto: update) ; Flyway n'applique
+ * que les migrations versionnées (index composites, FULLTEXT, contraintes)
+ * qu'Hibernate ne sait pas exprimer. Elles s'exécutent donc après la mise à
+ * jour du schéma (FlywayAfterHibernateMigration), et non avant comme le fait
+ * Spring Boot par défaut.
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy deferredFlywayMigrationStrategy() {
+        return flyway -> { };
+    }
+}
@@ -55,7 +55,8 @@ public class SecurityConfig {
                                 "/uploads/**",
                                 "/api/shared/view/**",
                                 "/api/shared/download/**",
-                                "/ws/**"
+                                "/ws/**",
+                                "/ws-native"
 
                         ).permitAll()
 
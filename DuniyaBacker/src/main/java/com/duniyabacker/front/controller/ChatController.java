@@ -4,8 +4,10 @@ import com.duniyabacker.front.dto.request.CallInviteRequest;
 import com.duniyabacker.front.dto.request.CallStartedRequest;
 import com.duniyabacker.front.dto.request.CreateConversationRequest;
 import com.duniyabacker.front.dto.response.ApiResponse;
+import com.duniyabacker.front.dto.response.ChatSyncResponse;
 import com.duniyabacker.front.dto.response.ConversationResponse;
 import com.duniyabacker.front.dto.response.MessageResponse;
+import com.duniyabacker.front.dto.response.MessageSearchResponse;
 import com.duniyabacker.front.service.ChatService;
 import com.duniyabacker.front.service.FileStorageService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,6 +17,7 @@ import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -49,8 +52,15 @@ public class ChatController {
             @AuthenticationPrincipal UserDetails userDetails,
             @Valid @RequestBody CreateConversationRequest request
     ) {
-        return ResponseEntity.ok(
-                chatService.createConversation(userDetails.getUsername(), request));
+        try {
+            return ResponseEntity.ok(
+                    chatService.createConversation(userDetails.getUsername(), request));
+        } catch (DataIntegrityViolationException e) {
+            // Conversation privée créée au même instant par l'autre participant :
+            // la nouvelle tentative la retrouve par sa clé de paire
+            return ResponseEntity.ok(
+                    chatService.createConversation(userDetails.getUsername(), request));
+        }
     }
 
     @Operation(summary = "Liste des conversations",
@@ -65,14 +75,74 @@ public class ChatController {
     }
 
     @Operation(summary = "Rechercher des conversations",
-            description = "Rechercher des conversations par nom")
+            description = "Rechercher des conversations par nom, de la plus récente à la plus ancienne. " +
+                    "Page suivante : before = id de la dernière conversation reçue.")
     @GetMapping("/conversations/search")
     public ResponseEntity<List<ConversationResponse>> searchConversations(
             @AuthenticationPrincipal UserDetails userDetails,
-            @Parameter(description = "Terme de recherche") @RequestParam String q
+            @Parameter(description = "Terme de recherche") @RequestParam String q,
+            @Parameter(description = "Curseur : conversations plus anciennes que celle-ci")
+            @RequestParam(required = false) Long before,
+            @Parameter(description = "Nombre de résultats (défaut 20, max 50)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(chatService.searchConversations(
+                userDetails.getUsername(), q, before, limit));
+    }
+
+    @Operation(summary = "Rechercher dans les messages",
+            description = "Recherche plein texte dans les messages des conversations de l'utilisateur, " +
+                    "du plus récent au plus ancien, avec extrait surligné. " +
+                    "Page suivante : before = nextCursor.")
+    @GetMapping("/messages/search")
+    public ResponseEntity<MessageSearchResponse> searchMessages(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Termes recherchés (3 caractères minimum par terme)")
+            @RequestParam String q,
+            @Parameter(description = "Limiter à une conversation")
+            @RequestParam(required = false) Long conversationId,
+            @Parameter(description = "Curseur : résultats plus anciens que ce message")
+            @RequestParam(required = false) Long before,
+            @Parameter(description = "Nombre de résultats (défaut 20, max 50)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(chatService.searchMessages(
+                userDetails.getUsername(), q, conversationId, before, limit));
+    }
+
+    @Operation(summary = "Nombre de messages non lus",
+            description = "Total des messages non lus de l'utilisateur, toutes conversations confondues")
+    @GetMapping("/unread-count")
+    public ResponseEntity<ApiResponse<Long>> getUnreadCount(
+            @AuthenticationPrincipal UserDetails userDetails
+    ) {
+        return ResponseEntity.ok(chatService.getUnreadCount(userDetails.getUsername()));
+    }
+
+    @Operation(summary = "Présence d'utilisateurs",
+            description = "État en ligne d'une liste d'utilisateurs (max 500). " +
+                    "Les changements suivants arrivent sur /user/queue/presence.")
+    @GetMapping("/presence")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> getPresence(
+            @Parameter(description = "Noms d'utilisateur séparés par des virgules")
+            @RequestParam List<String> users
+    ) {
+        return ResponseEntity.ok(chatService.getPresence(users));
+    }
+
+    @Operation(summary = "Synchronisation incrémentale",
+            description = "Obtenir les conversations et messages modifiés depuis un sync token. " +
+                    "À appeler au démarrage et après chaque notification RESYNC, à la place du polling.")
+    @GetMapping("/sync")
+    public ResponseEntity<ChatSyncResponse> sync(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Dernier sync token reçu (absent = resynchronisation complète)")
+            @RequestParam(required = false) Long since,
+            @Parameter(description = "Nombre maximum de changements (défaut 200, max 500)")
+            @RequestParam(required = false) Integer limit
     ) {
         return ResponseEntity.ok(
-                chatService.searchConversations(userDetails.getUsername(), q));
+                chatService.sync(userDetails.getUsername(), since, limit));
     }
 
     // =========================================================================
@@ -155,13 +225,27 @@ public class ChatController {
     // =========================================================================
 
     @Operation(summary = "Messages d'une conversation",
-            description = "Obtenir les messages d'une conversation spécifique")
+            description = "Obtenir les messages d'une conversation spécifique. " +
+                    "Mode curseur (before, after ou cursor=true) : Slice sans comptage total, " +
+                    "à privilégier pour le défilement des longues conversations.")
     @GetMapping("/conversations/{conversationId}/messages")
-    public ResponseEntity<Page<MessageResponse>> getMessages(
+    public ResponseEntity<?> getMessages(
             @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(description = "ID de la conversation") @PathVariable Long conversationId,
+            @Parameter(description = "Messages plus anciens que ce message")
+            @RequestParam(required = false) Long before,
+            @Parameter(description = "Messages plus récents que ce message")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Mode curseur pour la première page (sans before/after)")
+            @RequestParam(defaultValue = "false") boolean cursor,
+            @Parameter(description = "Taille de page en mode curseur (défaut 50, max 100)")
+            @RequestParam(required = false) Integer limit,
             @PageableDefault(size = 50, sort = "createdAt") Pageable pageable
     ) {
+        if (cursor || before != null || after != null) {
+            return ResponseEntity.ok(chatService.getMessagesByCursor(
+                    userDetails.getUsername(), conversationId, before, after, limit));
+        }
         return ResponseEntity.ok(chatService.getMessages(
                 userDetails.getUsername(), conversationId, pageable));
     }
@@ -176,11 +260,20 @@ public class ChatController {
             @Parameter(description = "Type de message")      @RequestParam(defaultValue = "TEXT") String type,
             @Parameter(description = "URL du fichier")       @RequestParam(required = false) String fileUrl,
             @Parameter(description = "Nom du fichier")       @RequestParam(required = false) String fileName,
-            @Parameter(description = "ID du message parent") @RequestParam(required = false) Long parentMessageId
+            @Parameter(description = "ID du message parent") @RequestParam(required = false) Long parentMessageId,
+            @Parameter(description = "Clé unique par message : un renvoi avec la même clé ne crée pas de doublon")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        return ResponseEntity.ok(chatService.sendMessage(
-                userDetails.getUsername(), conversationId,
-                content, type, fileUrl, fileName, parentMessageId));
+        try {
+            return ResponseEntity.ok(chatService.sendMessage(
+                    userDetails.getUsername(), conversationId,
+                    content, type, fileUrl, fileName, parentMessageId, idempotencyKey));
+        } catch (DataIntegrityViolationException e) {
+            // Deux envois simultanés avec la même clé : renvoyer celui qui a été enregistré
+            return ResponseEntity.ok(chatService
+                    .findSentMessage(userDetails.getUsername(), conversationId, idempotencyKey)
+                    .orElseThrow(() -> e));
+        }
     }
 
     // =========================================================================
@@ -217,16 +310,19 @@ public class ChatController {
     // =========================================================================
 
     @Operation(summary = "Marquer comme lu",
-            description = "Marquer un ou plusieurs messages comme lus")
+            description = "Marquer comme lus une liste de messages, tous les messages jusqu'à " +
+                    "upToMessageId, ou toute la conversation (sans paramètre)")
     @PostMapping("/conversations/{conversationId}/read")
     public ResponseEntity<ApiResponse<Void>> markAsRead(
             @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(description = "ID de la conversation") @PathVariable Long conversationId,
             @Parameter(description = "IDs des messages à marquer comme lus")
-            @RequestParam(required = false) List<Long> messageIds
+            @RequestParam(required = false) List<Long> messageIds,
+            @Parameter(description = "Marquer comme lus tous les messages jusqu'à celui-ci inclus")
+            @RequestParam(required = false) Long upToMessageId
     ) {
         return ResponseEntity.ok(chatService.markAsRead(
-                userDetails.getUsername(), conversationId, messageIds));
+                userDetails.getUsername(), conversationId, messageIds, upToMessageId));
     }
 
     // =========================================================================
@@ -284,9 +380,17 @@ public class ChatController {
             @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(description = "ID de l'entreprise à contacter") @PathVariable Long entrepriseId
     ) {
-        return ResponseEntity.ok(
-                chatService.createOrGetB2BConversation(
-                        userDetails.getUsername(), entrepriseId));
+        try {
+            return ResponseEntity.ok(
+                    chatService.createOrGetB2BConversation(
+                            userDetails.getUsername(), entrepriseId));
+        } catch (DataIntegrityViolationException e) {
+            // Conversation B2B créée au même instant par l'autre entreprise :
+            // la nouvelle tentative la retrouve par sa clé de paire
+            return ResponseEntity.ok(
+                    chatService.createOrGetB2BConversation(
+                            userDetails.getUsername(), entrepriseId));
+        }
     }
 
     // =========================================================================
@@ -321,9 +425,16 @@ public class ChatController {
             @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(description = "ID de l'utilisateur cible") @PathVariable Long targetUserId
     ) {
-        return ResponseEntity.ok(
-                chatService.createOrGetPrivateConversation(
-                        userDetails.getUsername(), targetUserId));
+        try {
+            return ResponseEntity.ok(
+                    chatService.createOrGetPrivateConversation(
+                            userDetails.getUsername(), targetUserId));
+        } catch (DataIntegrityViolationException e) {
+            // Création concurrente de la même paire : la nouvelle tentative la retrouve
+            return ResponseEntity.ok(
+                    chatService.createOrGetPrivateConversation(
+                            userDetails.getUsername(), targetUserId));
+        }
     }
 
     // =========================================================================
@@ -64,11 +64,15 @@ public class PublicationController {
     /** Recherche */
     @GetMapping("/search")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "Rechercher des publications")
+    @Operation(summary = "Rechercher des publications visibles, par pertinence")
     public ResponseEntity<List<PublicationResponse>> search(
-            @RequestParam String q
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit
     ) {
-        return ResponseEntity.ok(publicationService.search(q));
+        return ResponseEntity.ok(
+                publicationService.search(userDetails.getUsername(), q, limit)
+        );
     }
 
     /** Supprimer / archiver */
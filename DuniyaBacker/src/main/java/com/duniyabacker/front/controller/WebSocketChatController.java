@@ -2,13 +2,14 @@ package com.duniyabacker.front.controller;
 
 
 import com.duniyabacker.front.dto.response.ChatNotification;
+import com.duniyabacker.front.dto.response.PresenceResponse;
+import com.duniyabacker.front.service.ChatService;
+import com.duniyabacker.front.service.TypingIndicatorService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -19,79 +20,56 @@ import java.time.LocalDateTime;
 @Slf4j
 public class WebSocketChatController {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatService chatService;
+    private final TypingIndicatorService typingIndicatorService;
 
     /**
-     * Notification de frappe (typing indicator)
+     * Instantané de présence des contacts, renvoyé uniquement à la session
+     * qui s'abonne à /app/presence. Les changements suivants arrivent en
+     * PRESENCE_DIFF sur /user/queue/presence.
      */
-    @MessageMapping("/chat.typing")
-    public void handleTyping(
-            @Payload ChatNotification notification,
-            SimpMessageHeaderAccessor headerAccessor,
-            Principal principal
-    ) {
-        notification.setUsername(principal.getName());
-        notification.setTimestamp(LocalDateTime.now());
-        notification.setType("USER_TYPING");
-
-        // Envoyer la notification à la conversation
-        messagingTemplate.convertAndSend(
-                "/topic/conversation/" + notification.getConversationId(),
-                notification
-        );
+    @SubscribeMapping("/presence")
+    public PresenceResponse presenceSnapshot(Principal principal) {
+        return chatService.getContactPresenceSnapshot(principal.getName());
     }
 
     /**
-     * Notification d'arrêt de frappe
+     * Indice RESYNC, renvoyé uniquement à la session qui s'abonne à
+     * /app/chat.sync après ses autres abonnements : les trames d'une session
+     * étant traitées dans l'ordre (WebSocketConfig), sa queue personnelle et
+     * ses topics sont déjà enregistrés quand le client reçoit l'indice et
+     * rattrape les événements manqués via GET /api/chat/sync.
      */
-    @MessageMapping("/chat.stopTyping")
-    public void handleStopTyping(
-            @Payload ChatNotification notification,
-            Principal principal
-    ) {
-        notification.setUsername(principal.getName());
-        notification.setTimestamp(LocalDateTime.now());
-        notification.setType("USER_STOP_TYPING");
-
-        messagingTemplate.convertAndSend(
-                "/topic/conversation/" + notification.getConversationId(),
-                notification
-        );
+    @SubscribeMapping("/chat.sync")
+    public ChatNotification syncHint(Principal principal) {
+        return ChatNotification.builder()
+                .type("RESYNC")
+                .username(principal.getName())
+                .syncToken(chatService.getCurrentSyncToken())
+                .timestamp(LocalDateTime.now())
+                .build();
     }
 
     /**
-     * Notification de connexion
+     * Notification de frappe (typing indicator), limitée côté serveur :
+     * voir TypingIndicatorService
      */
-    @MessageMapping("/chat.connect")
-    @SendTo("/topic/public")
-    public ChatNotification handleConnect(
+    @MessageMapping("/chat.typing")
+    public void handleTyping(
             @Payload ChatNotification notification,
             Principal principal
     ) {
-        notification.setUsername(principal.getName());
-        notification.setTimestamp(LocalDateTime.now());
-        notification.setType("USER_ONLINE");
-
-        log.info("User connected: {}", principal.getName());
-
-        return notification;
+        typingIndicatorService.typing(principal.getName(), notification.getConversationId());
     }
 
     /**
-     * Notification de déconnexion
+     * Notification d'arrêt de frappe
      */
-    @MessageMapping("/chat.disconnect")
-    @SendTo("/topic/public")
-    public ChatNotification handleDisconnect(
+    @MessageMapping("/chat.stopTyping")
+    public void handleStopTyping(
             @Payload ChatNotification notification,
             Principal principal
     ) {
-        notification.setUsername(principal.getName());
-        notification.setTimestamp(LocalDateTime.now());
-        notification.setType("USER_OFFLINE");
-
-        log.info("User disconnected: {}", principal.getName());
-
-        return notification;
+        typingIndicatorService.stopTyping(principal.getName(), notification.getConversationId());
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * DTO pour les notifications en temps réel.
@@ -14,13 +15,17 @@ import java.time.LocalDateTime;
  *  - NEW_MESSAGE       : nouveau message reçu
  *  - MESSAGE_EDITED    : un message a été modifié
  *  - MESSAGE_DELETED   : un message a été supprimé
- *  - MESSAGE_READ      : message(s) marqué(s) comme lu(s)
+ *  - MESSAGE_READ      : accusé de lecture agrégé, envoyé aux seuls expéditeurs
+ *                        concernés (messageIds, readUpToMessageId, ou aucun des
+ *                        deux = toute la conversation lue)
  *  - USER_TYPING       : un utilisateur est en train d'écrire
  *  - USER_STOP_TYPING  : l'utilisateur a arrêté d'écrire
- *  - USER_ONLINE       : un utilisateur est connecté
- *  - USER_OFFLINE      : un utilisateur s'est déconnecté
+ *  - USER_ONLINE / USER_OFFLINE : obsolètes, la présence passe par
+ *    PresenceResponse sur /user/queue/presence
  *  - CONVERSATION_DELETED : une conversation a été supprimée
  *  - CALL_STARTED      : un appel/visioconférence vient d'être démarré
+ *  - RESYNC            : réponse à l'abonnement /app/chat.sync ; le client doit
+ *                        appeler GET /api/chat/sync (connexion et reconnexion)
  */
 @Data
 @Builder
@@ -45,4 +50,11 @@ public class ChatNotification {
     /** Utilisés par CALL_STARTED : lien de connexion et type d'appel ("audio"/"video"). */
     private String callLink;
     private String callType;
+
+    /** Utilisés par MESSAGE_READ : messages lus (liste) ou lus jusqu'à ce message inclus. */
+    private List<Long> messageIds;
+    private Long readUpToMessageId;
+
+    /** Séquence du journal de changements au moment de l'événement (voir GET /api/chat/sync). */
+    private Long syncToken;
 }
\ No newline at end of file
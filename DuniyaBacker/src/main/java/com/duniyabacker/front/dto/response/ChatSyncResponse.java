@@ -0,0 +1,37 @@
+package com.duniyabacker.front.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de réponse de la synchronisation incrémentale du chat.
+ *
+ * Le client renvoie syncToken au prochain appel. Si fullResync vaut true,
+ * le token fourni est trop ancien (ou absent) : le client doit recharger
+ * la liste des conversations puis repartir du syncToken renvoyé.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSyncResponse {
+
+    private long syncToken;
+    private boolean hasMore;
+    private boolean fullResync;
+
+    // Conversations créées ou modifiées (nom, participants, non lus...)
+    private List<ConversationResponse> conversations;
+
+    // Messages créés ou modifiés
+    private List<MessageResponse> messages;
+
+    private List<Long> deletedMessageIds;
+
+    // Conversations supprimées ou quittées par l'utilisateur
+    private List<Long> removedConversationIds;
+}
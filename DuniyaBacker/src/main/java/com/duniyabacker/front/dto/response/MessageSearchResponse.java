@@ -0,0 +1,36 @@
+package com.duniyabacker.front.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultats de la recherche plein texte dans les messages, du plus récent
+ * au plus ancien. Page suivante : rappeler avec before = nextCursor.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResponse {
+
+    private List<Hit> results;
+    private boolean hasMore;
+    private Long nextCursor;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+
+        private MessageResponse message;
+        private String conversationName;
+
+        // Extrait échappé en HTML, termes trouvés entre <mark></mark>
+        private String highlight;
+    }
+}
@@ -0,0 +1,30 @@
+package com.duniyabacker.front.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Présence des contacts, envoyée sur /user/queue/presence.
+ *
+ * Types :
+ *  - PRESENCE_SNAPSHOT : état complet des contacts (réponse à l'abonnement /app/presence)
+ *  - PRESENCE_DIFF     : uniquement les utilisateurs dont l'état vient de changer
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceResponse {
+
+    private String type;
+
+    // username -> en ligne
+    private Map<String, Boolean> users;
+
+    private LocalDateTime timestamp;
+}
@@ -9,6 +9,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Entity
 @Table(name = "users")
@@ -24,6 +25,18 @@ public class User implements UserDetails {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * Identité stable de l'entité, attribuée à la construction (avant le
+     * persist, contrairement à l'id IDENTITY) : sert de base à equals/hashCode.
+     * Hibernate la remplace par la valeur en base à l'hydratation.
+     * Nullable dans le mapping : la colonne ajoutée par ddl-auto sur une base
+     * existante ne doit pas être remplie de '' ; la migration V9 complète les
+     * comptes antérieurs puis pose NOT NULL et l'index unique uk_users_uuid.
+     */
+    @Column(name = "uuid", updatable = false, length = 36)
+    @Setter(AccessLevel.NONE)
+    private String uuid = UUID.randomUUID().toString();
+
     @Column(unique = true, nullable = false)
     private String username;
 
@@ -82,30 +95,23 @@ public class User implements UserDetails {
     }
 
     // =========================================================================
-    // FIX : equals/hashCode basés UNIQUEMENT sur l'id
-    // Indispensable pour que Set<User> fonctionne avec les proxies Hibernate
+    // equals/hashCode basés sur l'uuid
+    // Stable avant et après persist, et réparti : un Set<User> de participants
+    // reste en O(1) (un hashCode constant mettait tout dans le même bucket).
+    // Un proxy Hibernate délègue getUuid() à l'entité réelle.
     // =========================================================================
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null) return false;
-
-        // Gérer les proxies Hibernate : comparer sur la classe de base
-        Class<?> thisClass = org.hibernate.Hibernate.getClass(this);
-        Class<?> otherClass = org.hibernate.Hibernate.getClass(o);
-        if (thisClass != otherClass) return false;
-
-        User user = (User) o;
-        // Deux entités non persistées (id == null) ne sont jamais égales
-        return id != null && id.equals(user.getId());
+        // instanceof couvre les proxies Hibernate (sous-classes de l'entité)
+        if (!(o instanceof User other)) return false;
+        return getUuid().equals(other.getUuid());
     }
 
     @Override
     public int hashCode() {
-        // hashCode constant pour les entités JPA
-        // (évite les problèmes quand l'id passe de null à une valeur après persist)
-        return getClass().hashCode();
+        return getUuid().hashCode();
     }
 
     // =========================================================================
@@ -45,5 +45,5 @@ public class Employe extends User {
     @Column(name = "invitation_accepted")
     private boolean invitationAccepted = false;
 
-    // equals/hashCode hérité de User (basé sur id uniquement)
+    // equals/hashCode hérité de User (basé sur l'uuid)
 }
\ No newline at end of file
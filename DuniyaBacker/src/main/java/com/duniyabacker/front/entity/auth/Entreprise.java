@@ -54,5 +54,5 @@ public class Entreprise extends User {
         employe.setEntreprise(null);
     }
 
-    // equals/hashCode hérité de User (basé sur id uniquement)
+    // equals/hashCode hérité de User (basé sur l'uuid)
 }
\ No newline at end of file
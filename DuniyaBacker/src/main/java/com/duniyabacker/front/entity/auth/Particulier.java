@@ -42,5 +42,5 @@ public class Particulier extends User {
     @Column
     private boolean newsletter = false;
 
-    // equals/hashCode hérité de User (basé sur id uniquement)
+    // equals/hashCode hérité de User (basé sur l'uuid)
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.duniyabacker.front.entity.chat;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Journal des changements de la messagerie.
+ * L'id auto-incrémenté sert de séquence : le "sync token" renvoyé au client
+ * est un id du journal. Les ids sont attribués à l'insertion mais visibles au
+ * commit, dans un ordre qui peut différer : le token ne dépasse donc jamais un
+ * changement encore dans la fenêtre de stabilisation (ChatService.sync).
+ *
+ * On stocke des ids bruts (pas de @ManyToOne) pour que le journal survive à
+ * la suppression des messages et des conversations qu'il référence.
+ */
+@Entity
+@Table(
+        name = "chat_changes",
+        indexes = {
+                @Index(name = "idx_chat_changes_conversation", columnList = "conversation_id, id"),
+                @Index(name = "idx_chat_changes_user", columnList = "user_id, id"),
+                // Changements récents (fenêtre de stabilisation du token) et purge
+                @Index(name = "idx_chat_changes_created", columnList = "created_at")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private ChangeType type;
+
+    @Column(name = "conversation_id", nullable = false)
+    private Long conversationId;
+
+    @Column(name = "message_id")
+    private Long messageId;
+
+    /**
+     * Destinataire unique du changement (ex : retrait d'un groupe).
+     * null = visible par tous les participants actuels de la conversation.
+     */
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Posée par la base (migration V10) : une seule horloge pour tous les
+    // nœuds, celle qui mesure aussi la fenêtre de stabilisation
+    @Column(name = "created_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime createdAt;
+
+    public enum ChangeType {
+        MESSAGE_CREATED,
+        MESSAGE_EDITED,
+        MESSAGE_DELETED,
+        MESSAGES_READ,
+        CONVERSATION_UPDATED,
+        CONVERSATION_REMOVED
+    }
+}
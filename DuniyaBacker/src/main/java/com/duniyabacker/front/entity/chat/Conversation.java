@@ -5,14 +5,22 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "conversations")
-@Data
+@Table(
+        name = "conversations",
+        uniqueConstraints = {
+                // Une seule conversation privée par paire d'utilisateurs
+                @UniqueConstraint(name = "uk_conversations_private_pair", columnNames = "private_pair_key"),
+                // Une seule conversation B2B par paire d'entreprises
+                @UniqueConstraint(name = "uk_conversations_b2b_pair", columnNames = "b2b_pair_key")
+        }
+)
+@Getter
+@Setter
+@ToString(exclude = {"createdBy", "participants"})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -28,6 +36,15 @@ public class Conversation {
     @Column(name = "is_group")
     private boolean isGroup = false;
 
+    // Conversation privée (1-1) : "minUserId:maxUserId", null pour les groupes
+    @Column(name = "private_pair_key", length = 41)
+    private String privatePairKey;
+
+    // Conversation B2B : "minId:maxId" des deux entreprises (ou du particulier
+    // à l'origine du contact et de l'entreprise), null sinon
+    @Column(name = "b2b_pair_key", length = 41)
+    private String b2bPairKey;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -49,11 +66,8 @@ public class Conversation {
     @Builder.Default
     private Set<User> participants = new HashSet<>();
 
-    // Messages de la conversation
-    @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true)
-    @OrderBy("createdAt DESC")
-    @Builder.Default
-    private List<Message> messages = new ArrayList<>();
+    // Pas de collection des messages : ils se lisent par requête paginée
+    // (MessageRepository) et sont supprimés en masse avec la conversation
 
     @PrePersist
     protected void onCreate() {
@@ -67,6 +81,14 @@ public class Conversation {
     }
 
     // Méthodes utilitaires
+    public static String privatePairKey(Long userId1, Long userId2) {
+        return Math.min(userId1, userId2) + ":" + Math.max(userId1, userId2);
+    }
+
+    public static String b2bPairKey(Long entrepriseUserId1, Long entrepriseUserId2) {
+        return Math.min(entrepriseUserId1, entrepriseUserId2) + ":" + Math.max(entrepriseUserId1, entrepriseUserId2);
+    }
+
     public void addParticipant(User user) {
         participants.add(user);
     }
@@ -74,10 +96,4 @@ public class Conversation {
     public void removeParticipant(User user) {
         participants.remove(user);
     }
-
-    public void addMessage(Message message) {
-        messages.add(message);
-        message.setConversation(this);
-        this.updatedAt = LocalDateTime.now();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.duniyabacker.front.entity.chat;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Départ explicite d'un membre d'un groupe (leaveConversation ou retrait par
+ * un autre membre). La synchronisation des membres B2B ne réintègre pas ces
+ * utilisateurs ; la ligne disparaît quand ils sont de nouveau ajoutés
+ * explicitement.
+ */
+@Entity
+@Table(
+        name = "conversation_departures",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_conversation_departures_conversation_user",
+                columnNames = {"conversation_id", "user_id"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationDeparture {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conversation_id", nullable = false)
+    private Long conversationId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "left_at")
+    private LocalDateTime leftAt;
+}
@@ -0,0 +1,56 @@
+package com.duniyabacker.front.entity.chat;
+
+import com.duniyabacker.front.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * État dénormalisé d'une conversation pour un participant : compteur de non
+ * lus et pointeur vers le dernier message, maintenus incrémentalement à
+ * l'envoi et à la lecture. La liste des conversations et les badges lisent
+ * cette ligne au lieu de compter les messages.
+ */
+@Entity
+@Table(
+        name = "conversation_participant_state",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_participant_state_conversation_user",
+                columnNames = {"conversation_id", "user_id"})
+)
+@Getter
+@Setter
+@ToString(exclude = {"conversation", "user"})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationParticipantState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id", nullable = false)
+    private Conversation conversation;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // Dernier message lu par ce participant (null = aucun)
+    @Column(name = "last_read_message_id")
+    private Long lastReadMessageId;
+
+    @Column(name = "unread_count", nullable = false)
+    @Builder.Default
+    private long unreadCount = 0;
+
+    // Instantané du dernier message de la conversation
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+}
@@ -7,8 +7,20 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
-@Data
+@Table(
+        name = "messages",
+        indexes = {
+                // Pagination par curseur (keyset) de l'historique d'une conversation
+                @Index(name = "idx_messages_conversation_created", columnList = "conversation_id, created_at, id")
+        },
+        uniqueConstraints = {
+                // Clé d'idempotence fournie par le client : un renvoi ne crée pas de doublon
+                @UniqueConstraint(name = "uk_messages_sender_client_id", columnNames = {"sender_id", "client_message_id"})
+        }
+)
+@Getter
+@Setter
+@ToString(exclude = {"sender", "conversation", "parentMessage"})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -46,6 +58,10 @@ public class Message {
     @Column(name = "read_at")
     private LocalDateTime readAt;
 
+    // En-tête Idempotency-Key de l'envoi (null si absent)
+    @Column(name = "client_message_id", length = 64)
+    private String clientMessageId;
+
     // Expéditeur du message
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
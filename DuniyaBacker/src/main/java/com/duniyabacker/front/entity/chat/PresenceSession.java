@@ -0,0 +1,50 @@
+package com.duniyabacker.front.entity.chat;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Session WebSocket ouverte sur l'un des nœuds backend (store de présence
+ * partagé, app.presence.store=database). Chaque nœud renouvelle
+ * périodiquement le bail de ses sessions : celles d'un nœud tombé expirent
+ * et sont purgées par le reaper des autres nœuds.
+ */
+@Entity
+@Table(
+        name = "presence_sessions",
+        indexes = {
+                @Index(name = "idx_presence_sessions_username", columnList = "username, lease_expires_at"),
+                @Index(name = "idx_presence_sessions_node", columnList = "node_id"),
+                @Index(name = "idx_presence_sessions_lease", columnList = "lease_expires_at")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresenceSession {
+
+    // Identifiant de session STOMP
+    @Id
+    @Column(name = "session_id", length = 100)
+    private String sessionId;
+
+    @Column(nullable = false, length = 100)
+    private String username;
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "lease_expires_at", nullable = false)
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "connected_at")
+    private LocalDateTime connectedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        connectedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,56 @@
+package com.duniyabacker.front.repository;
+
+import com.duniyabacker.front.entity.chat.ChatChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChatChangeRepository extends JpaRepository<ChatChange, Long> {
+
+    // =========================================================================
+    // Changements visibles par un utilisateur depuis un sync token
+    // =========================================================================
+    @Query("""
+        SELECT ch FROM ChatChange ch
+        WHERE ch.id > :since
+          AND (ch.userId = :userId
+               OR (ch.userId IS NULL AND ch.conversationId IN (
+                    SELECT c.id FROM Conversation c
+                    JOIN c.participants p
+                    WHERE p.id = :userId)))
+        ORDER BY ch.id ASC
+        """)
+    List<ChatChange> findChangesSince(
+            @Param("userId") Long userId,
+            @Param("since") long since,
+            Pageable pageable);
+
+    // Dernière valeur de la séquence (0 si le journal est vide)
+    @Query("SELECT COALESCE(MAX(ch.id), 0) FROM ChatChange ch")
+    long findCurrentSequence();
+
+    // Plus ancienne valeur encore conservée (0 si le journal est vide)
+    @Query("SELECT COALESCE(MIN(ch.id), 0) FROM ChatChange ch")
+    long findOldestSequence();
+
+    // Plus petit id inséré après cette date (null si aucun) : les changements
+    // à partir de cet id peuvent encore côtoyer des ids plus bas non commités
+    @Query("SELECT MIN(ch.id) FROM ChatChange ch WHERE ch.createdAt > :settledBefore")
+    Long findFirstIdCreatedAfter(@Param("settledBefore") LocalDateTime settledBefore);
+
+    // Horloge de la base, celle qui date created_at (et non celle du nœud)
+    @Query(value = "SELECT LOCALTIMESTAMP(6)", nativeQuery = true)
+    LocalDateTime findDatabaseNow();
+
+    // Purge des changements trop anciens
+    @Modifying
+    @Query("DELETE FROM ChatChange ch WHERE ch.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
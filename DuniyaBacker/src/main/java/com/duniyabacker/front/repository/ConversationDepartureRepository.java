@@ -0,0 +1,48 @@
+package com.duniyabacker.front.repository;
+
+import com.duniyabacker.front.entity.chat.ConversationDeparture;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ConversationDepartureRepository extends JpaRepository<ConversationDeparture, Long> {
+
+    // Départ explicite : un second départ (après une réintégration) met la date à jour
+    @Modifying
+    @Query(value = """
+        INSERT INTO conversation_departures (conversation_id, user_id, left_at)
+        VALUES (:conversationId, :userId, CURRENT_TIMESTAMP(6))
+        ON DUPLICATE KEY UPDATE left_at = CURRENT_TIMESTAMP(6)
+        """, nativeQuery = true)
+    void recordDeparture(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId);
+
+    // Membres partis ou retirés (exclus de la synchronisation B2B)
+    @Query("""
+        SELECT d.userId FROM ConversationDeparture d
+        WHERE d.conversationId = :conversationId
+        """)
+    List<Long> findUserIds(@Param("conversationId") Long conversationId);
+
+    // Réintégration explicite
+    @Modifying
+    @Query("""
+        DELETE FROM ConversationDeparture d
+        WHERE d.conversationId = :conversationId
+          AND d.userId IN :userIds
+        """)
+    void deleteByConversationAndUsers(
+            @Param("conversationId") Long conversationId,
+            @Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("DELETE FROM ConversationDeparture d WHERE d.conversationId = :conversationId")
+    void deleteByConversation(@Param("conversationId") Long conversationId);
+}
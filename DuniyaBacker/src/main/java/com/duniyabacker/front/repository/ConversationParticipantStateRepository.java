@@ -0,0 +1,182 @@
+package com.duniyabacker.front.repository;
+
+import com.duniyabacker.front.entity.chat.ConversationParticipantState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ConversationParticipantStateRepository
+        extends JpaRepository<ConversationParticipantState, Long> {
+
+    // États d'un utilisateur pour un lot de conversations
+    @Query("""
+        SELECT s FROM ConversationParticipantState s
+        WHERE s.user.id = :userId
+          AND s.conversation.id IN :conversationIds
+        """)
+    List<ConversationParticipantState> findByUserAndConversations(
+            @Param("userId") Long userId,
+            @Param("conversationIds") Collection<Long> conversationIds);
+
+    // Total des non lus d'un utilisateur (badge)
+    @Query("""
+        SELECT COALESCE(SUM(s.unreadCount), 0) FROM ConversationParticipantState s
+        WHERE s.user.id = :userId
+        """)
+    long sumUnreadCount(@Param("userId") Long userId);
+
+    // =========================================================================
+    // Mises à jour incrémentales
+    //
+    // Le compteur d'un participant suit son propre filigrane lastReadMessageId :
+    // non lus = messages des autres d'id supérieur. Le drapeau global
+    // Message.isRead (accusés de lecture) n'intervient pas.
+    //
+    // Deux envois peuvent valider dans le désordre : les pointeurs
+    // (lastMessageId, lastReadMessageId) ne reculent jamais. MySQL évalue les
+    // affectations de gauche à droite avec les valeurs déjà modifiées : chaque
+    // colonne est lue avant d'être réaffectée (lastMessageAt avant
+    // lastMessageId, unreadCount avant lastReadMessageId).
+    // =========================================================================
+
+    // Nouveau message : +1 non lu pour tous les participants sauf l'expéditeur,
+    // sauf s'ils ont déjà lu au-delà (message validé après un plus récent)
+    @Modifying
+    @Query("""
+        UPDATE ConversationParticipantState s
+        SET s.unreadCount = s.unreadCount + CASE
+                WHEN s.lastReadMessageId IS NULL OR s.lastReadMessageId < :messageId THEN 1
+                ELSE 0 END,
+            s.lastMessageAt = CASE
+                WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :sentAt
+                ELSE s.lastMessageAt END,
+            s.lastMessageId = CASE
+                WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :messageId
+                ELSE s.lastMessageId END
+        WHERE s.conversation.id = :conversationId
+          AND s.user.id <> :senderId
+        """)
+    void registerIncomingMessage(
+            @Param("conversationId") Long conversationId,
+            @Param("senderId") Long senderId,
+            @Param("messageId") Long messageId,
+            @Param("sentAt") LocalDateTime sentAt);
+
+    // Nouveau message : l'expéditeur a forcément lu son propre message, et
+    // son filigrane passe au-delà de tout ce qui précède. Le compteur est
+    // recalculé : les messages des autres validés après celui-ci restent non lus
+    @Modifying
+    @Query("""
+        UPDATE ConversationParticipantState s
+        SET s.lastMessageAt = CASE
+                WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :sentAt
+                ELSE s.lastMessageAt END,
+            s.lastMessageId = CASE
+                WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :messageId
+                ELSE s.lastMessageId END,
+            s.unreadCount = (
+                SELECT COUNT(m) FROM Message m
+                WHERE m.conversation.id = :conversationId
+                  AND m.sender.id <> :senderId
+                  AND m.id > :messageId
+                  AND (s.lastReadMessageId IS NULL OR m.id > s.lastReadMessageId)),
+            s.lastReadMessageId = CASE
+                WHEN s.lastReadMessageId IS NULL OR s.lastReadMessageId < :messageId THEN :messageId
+                ELSE s.lastReadMessageId END
+        WHERE s.conversation.id = :conversationId
+          AND s.user.id = :senderId
+        """)
+    void registerOwnMessage(
+            @Param("conversationId") Long conversationId,
+            @Param("senderId") Long senderId,
+            @Param("messageId") Long messageId,
+            @Param("sentAt") LocalDateTime sentAt);
+
+    // Tout marquer comme lu
+    @Modifying
+    @Query("""
+        UPDATE ConversationParticipantState s
+        SET s.unreadCount = 0,
+            s.lastReadMessageId = s.lastMessageId
+        WHERE s.conversation.id = :conversationId
+          AND s.user.id = :userId
+        """)
+    void resetUnread(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId);
+
+    // Lecture jusqu'à un message : le compteur repart des messages postérieurs.
+    // Sans effet si le participant avait déjà lu plus loin.
+    @Modifying
+    @Query("""
+        UPDATE ConversationParticipantState s
+        SET s.lastReadMessageId = :upToMessageId,
+            s.unreadCount = (
+                SELECT COUNT(m) FROM Message m
+                WHERE m.conversation.id = :conversationId
+                  AND m.sender.id <> :userId
+                  AND m.id > :upToMessageId)
+        WHERE s.conversation.id = :conversationId
+          AND s.user.id = :userId
+          AND (s.lastReadMessageId IS NULL OR s.lastReadMessageId < :upToMessageId)
+        """)
+    void advanceReadWatermark(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId,
+            @Param("upToMessageId") Long upToMessageId);
+
+    // Suppression d'un message encore non lu par certains participants
+    @Modifying
+    @Query("""
+        UPDATE ConversationParticipantState s
+        SET s.unreadCount = s.unreadCount - 1
+        WHERE s.conversation.id = :conversationId
+          AND s.user.id <> :senderId
+          AND s.unreadCount > 0
+          AND (s.lastReadMessageId IS NULL OR s.lastReadMessageId < :messageId)
+        """)
+    void discardUnreadMessage(
+            @Param("conversationId") Long conversationId,
+            @Param("senderId") Long senderId,
+            @Param("messageId") Long messageId);
+
+    // Le dernier message a été supprimé : pointer vers le précédent
+    @Modifying
+    @Query("""
+        UPDATE ConversationParticipantState s
+        SET s.lastMessageId = :newLastMessageId,
+            s.lastMessageAt = :newLastMessageAt
+        WHERE s.conversation.id = :conversationId
+          AND s.lastMessageId = :deletedMessageId
+        """)
+    void replaceLastMessage(
+            @Param("conversationId") Long conversationId,
+            @Param("deletedMessageId") Long deletedMessageId,
+            @Param("newLastMessageId") Long newLastMessageId,
+            @Param("newLastMessageAt") LocalDateTime newLastMessageAt);
+
+    // =========================================================================
+    // Départ d'un participant / suppression d'une conversation
+    // =========================================================================
+
+    @Modifying
+    @Query("""
+        DELETE FROM ConversationParticipantState s
+        WHERE s.conversation.id = :conversationId
+          AND s.user.id = :userId
+        """)
+    void deleteByConversationAndUser(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM ConversationParticipantState s WHERE s.conversation.id = :conversationId")
+    void deleteByConversation(@Param("conversationId") Long conversationId);
+}
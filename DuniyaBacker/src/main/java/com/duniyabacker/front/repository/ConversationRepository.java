@@ -4,10 +4,13 @@ import com.duniyabacker.front.entity.chat.Conversation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,18 +18,69 @@ import java.util.Optional;
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
 
     // =========================================================================
-    // Conversations d'un utilisateur (paginé)
+    // Conversations d'un utilisateur (paginé) : les ids seulement, les entités
+    // et leurs participants sont chargés ensuite par findAllWithParticipants
+    // (un JOIN FETCH de collection ne se pagine qu'en mémoire)
     // =========================================================================
-    @Query("""
-        SELECT c FROM Conversation c
+    @Query(value = """
+        SELECT c.id FROM Conversation c
         JOIN c.participants p
         WHERE p.id = :userId
         ORDER BY c.updatedAt DESC
+        """,
+        countQuery = """
+        SELECT COUNT(c) FROM Conversation c
+        JOIN c.participants p
+        WHERE p.id = :userId
         """)
-    Page<Conversation> findByParticipantId(
+    Page<Long> findIdsByParticipantId(
             @Param("userId") Long userId,
             Pageable pageable);
 
+    // =========================================================================
+    // Charger en une requête les participants d'un lot de conversations
+    // (initialise les collections des entités déjà présentes dans la session)
+    // =========================================================================
+    @Query("""
+        SELECT DISTINCT c FROM Conversation c
+        LEFT JOIN FETCH c.participants
+        WHERE c.id IN :conversationIds
+        """)
+    List<Conversation> findAllWithParticipants(
+            @Param("conversationIds") Collection<Long> conversationIds);
+
+    // =========================================================================
+    // Contacts d'un utilisateur : participants de ses conversations
+    // =========================================================================
+    @Query("""
+        SELECT DISTINCT other.username FROM Conversation c
+        JOIN c.participants me
+        JOIN c.participants other
+        WHERE me.username = :username
+          AND other.username <> :username
+        """)
+    List<String> findContactUsernames(@Param("username") String username);
+
+    // =========================================================================
+    // Membres d'une conversation (cache d'appartenance)
+    // =========================================================================
+    @Query("""
+        SELECT p.username FROM Conversation c
+        JOIN c.participants p
+        WHERE c.id = :conversationId
+        """)
+    List<String> findParticipantUsernames(@Param("conversationId") Long conversationId);
+
+    // =========================================================================
+    // Conversation avec ses participants (envoi : appartenance + destinataires)
+    // =========================================================================
+    @Query("""
+        SELECT c FROM Conversation c
+        LEFT JOIN FETCH c.participants
+        WHERE c.id = :conversationId
+        """)
+    Optional<Conversation> findWithParticipants(@Param("conversationId") Long conversationId);
+
     // =========================================================================
     // Vérifier si un utilisateur est participant d'une conversation
     // =========================================================================
@@ -41,48 +95,78 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
             @Param("userId") Long userId);
 
     // =========================================================================
-    // Trouver une conversation privée (1-1) entre deux utilisateurs
+    // Trouver une conversation privée (1-1) entre deux utilisateurs :
+    // lecture unique de l'index uk_conversations_private_pair
     // =========================================================================
-    @Query("""
-        SELECT c FROM Conversation c
-        JOIN c.participants p1
-        JOIN c.participants p2
-        WHERE c.isGroup = false
-          AND p1.id = :userId1
-          AND p2.id = :userId2
-          AND SIZE(c.participants) = 2
-        """)
-    Optional<Conversation> findPrivateConversation(
-            @Param("userId1") Long userId1,
-            @Param("userId2") Long userId2);
+    Optional<Conversation> findByPrivatePairKey(String privatePairKey);
 
     // =========================================================================
-    // Trouver une conversation B2B existante entre deux entreprises
+    // Trouver une conversation B2B existante entre deux entreprises :
+    // lecture unique de l'index uk_conversations_b2b_pair
     // =========================================================================
+    Optional<Conversation> findByB2bPairKey(String b2bPairKey);
+
+    // Ids des participants (synchronisation des membres B2B par différence)
     @Query("""
-        SELECT c FROM Conversation c
-        JOIN c.participants p1
-        JOIN c.participants p2
-        WHERE c.isGroup = true
-          AND c.name LIKE 'B2B::%'
-          AND p1.id = :entreprise1Id
-          AND p2.id = :entreprise2Id
+        SELECT p.id FROM Conversation c
+        JOIN c.participants p
+        WHERE c.id = :conversationId
         """)
-    Optional<Conversation> findB2BConversation(
-            @Param("entreprise1Id") Long entreprise1Id,
-            @Param("entreprise2Id") Long entreprise2Id);
+    List<Long> findParticipantIds(@Param("conversationId") Long conversationId);
 
     // =========================================================================
-    // Rechercher des conversations par nom
+    // Rechercher des conversations par nom, dans celles de l'utilisateur ;
+    // keyset sur l'id, de la plus récente à la plus ancienne
     // =========================================================================
     @Query("""
-        SELECT c FROM Conversation c
+        SELECT c.id FROM Conversation c
         JOIN c.participants p
         WHERE p.id = :userId
           AND LOWER(c.name) LIKE LOWER(CONCAT('%', :searchTerm, '%'))
-        ORDER BY c.updatedAt DESC
+          AND (:beforeId IS NULL OR c.id < :beforeId)
+        ORDER BY c.id DESC
         """)
-    List<Conversation> searchConversations(
+    List<Long> searchConversationIds(
             @Param("userId") Long userId,
-            @Param("searchTerm") String searchTerm);
+            @Param("searchTerm") String searchTerm,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    // Recherche plein texte (index ftx_conversations_name) ; query au format
+    // du mode booléen
+    @Query(value = """
+        SELECT c.id FROM conversations c
+        JOIN conversation_participants cp
+          ON cp.conversation_id = c.id AND cp.user_id = :userId
+        WHERE MATCH(c.name) AGAINST (:query IN BOOLEAN MODE)
+          AND (:beforeId IS NULL OR c.id < :beforeId)
+        ORDER BY c.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Long> searchConversationIdsFullText(
+            @Param("userId") Long userId,
+            @Param("query") String query,
+            @Param("beforeId") Long beforeId,
+            @Param("limit") int limit);
+
+    // =========================================================================
+    // Suppression en masse (après celle des messages)
+    // =========================================================================
+    @Modifying
+    @Query(value = "DELETE FROM conversation_participants WHERE conversation_id = :conversationId",
+            nativeQuery = true)
+    void deleteParticipants(@Param("conversationId") Long conversationId);
+
+    @Modifying
+    @Query("DELETE FROM Conversation c WHERE c.id = :conversationId")
+    void deleteConversationById(@Param("conversationId") Long conversationId);
+
+    // =========================================================================
+    // Nouveau message : seule la date de mise à jour change
+    // =========================================================================
+    @Modifying
+    @Query("UPDATE Conversation c SET c.updatedAt = :updatedAt WHERE c.id = :conversationId")
+    void touchUpdatedAt(
+            @Param("conversationId") Long conversationId,
+            @Param("updatedAt") LocalDateTime updatedAt);
 }
\ No newline at end of file
@@ -5,8 +5,11 @@ import com.duniyabacker.front.entity.auth.Entreprise;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +31,14 @@ public interface EmployeRepository extends JpaRepository<Employe, Long> {
     long countByEntreprise(Entreprise entreprise);
 
     boolean existsByEmailAndEntreprise(String email, Entreprise entreprise);
+
+    // Ids des employés d'un lot d'entreprises selon leur état (membres des conversations B2B)
+    @Query("""
+        SELECT e.id FROM Employe e
+        WHERE e.entreprise.id IN :entrepriseIds
+          AND e.enabled = :enabled
+        """)
+    List<Long> findIdsByEntrepriseIdsAndEnabled(
+            @Param("entrepriseIds") Collection<Long> entrepriseIds,
+            @Param("enabled") boolean enabled);
 }
\ No newline at end of file
@@ -4,12 +4,18 @@ import com.duniyabacker.front.entity.chat.Conversation;
 import com.duniyabacker.front.entity.chat.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
@@ -17,6 +23,80 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             Conversation conversation,
             Pageable pageable);
 
+    // =========================================================================
+    // Historique par curseur (keyset) : pas d'OFFSET ni de COUNT, l'index
+    // (conversation_id, created_at, id) est parcouru à partir du curseur
+    // =========================================================================
+
+    // Page la plus récente
+    @Query("""
+        SELECT m FROM Message m
+        JOIN FETCH m.sender
+        LEFT JOIN FETCH m.parentMessage
+        WHERE m.conversation.id = :conversationId
+        ORDER BY m.createdAt DESC, m.id DESC
+        """)
+    Slice<Message> findLatest(
+            @Param("conversationId") Long conversationId,
+            Pageable pageable);
+
+    // Messages plus anciens que le curseur (défilement vers le haut)
+    @Query("""
+        SELECT m FROM Message m
+        JOIN FETCH m.sender
+        LEFT JOIN FETCH m.parentMessage
+        WHERE m.conversation.id = :conversationId
+          AND (m.createdAt < :createdAt
+               OR (m.createdAt = :createdAt AND m.id < :messageId))
+        ORDER BY m.createdAt DESC, m.id DESC
+        """)
+    Slice<Message> findBefore(
+            @Param("conversationId") Long conversationId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("messageId") Long messageId,
+            Pageable pageable);
+
+    // Messages plus récents que le curseur (rattrapage), du plus ancien au plus récent
+    @Query("""
+        SELECT m FROM Message m
+        JOIN FETCH m.sender
+        LEFT JOIN FETCH m.parentMessage
+        WHERE m.conversation.id = :conversationId
+          AND (m.createdAt > :createdAt
+               OR (m.createdAt = :createdAt AND m.id > :messageId))
+        ORDER BY m.createdAt ASC, m.id ASC
+        """)
+    Slice<Message> findAfter(
+            @Param("conversationId") Long conversationId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("messageId") Long messageId,
+            Pageable pageable);
+
+    // Date d'un message servant de curseur, s'il appartient bien à la conversation
+    @Query("""
+        SELECT m.createdAt FROM Message m
+        WHERE m.id = :messageId
+          AND m.conversation.id = :conversationId
+        """)
+    Optional<LocalDateTime> findCursorCreatedAt(
+            @Param("conversationId") Long conversationId,
+            @Param("messageId") Long messageId);
+
+    // Message déjà enregistré pour une clé d'idempotence de l'expéditeur
+    @Query("""
+        SELECT m FROM Message m
+        JOIN FETCH m.sender
+        LEFT JOIN FETCH m.parentMessage
+        WHERE m.sender.id = :senderId
+          AND m.clientMessageId = :clientMessageId
+        """)
+    Optional<Message> findByClientMessageId(
+            @Param("senderId") Long senderId,
+            @Param("clientMessageId") String clientMessageId);
+
+    // Message parent d'une réponse, limité à la conversation
+    Optional<Message> findByIdAndConversationId(Long id, Long conversationId);
+
     // Dernier message d'une conversation
     @Query("""
         SELECT m FROM Message m
@@ -26,6 +106,48 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
         """)
     Message findLastMessage(@Param("conversationId") Long conversationId);
 
+    // Derniers messages d'un lot de conversations (liste des conversations : une seule requête)
+    @Query("""
+        SELECT m FROM Message m
+        JOIN FETCH m.sender
+        LEFT JOIN FETCH m.parentMessage
+        WHERE m.id IN (
+            SELECT MAX(m2.id) FROM Message m2
+            WHERE m2.conversation.id IN :conversationIds
+            GROUP BY m2.conversation.id)
+        """)
+    List<Message> findLastMessages(@Param("conversationIds") Collection<Long> conversationIds);
+
+    // Messages par ids avec expéditeur et parent (derniers messages des états)
+    @Query("""
+        SELECT m FROM Message m
+        JOIN FETCH m.sender
+        LEFT JOIN FETCH m.parentMessage
+        WHERE m.id IN :ids
+        """)
+    List<Message> findAllWithSender(@Param("ids") Collection<Long> ids);
+
+    // =========================================================================
+    // Recherche plein texte (index ftx_messages_content) dans les conversations
+    // de l'utilisateur ; keyset sur l'id, du plus récent au plus ancien
+    // =========================================================================
+    @Query(value = """
+        SELECT m.id FROM messages m
+        JOIN conversation_participants cp
+          ON cp.conversation_id = m.conversation_id AND cp.user_id = :userId
+        WHERE MATCH(m.content) AGAINST (:query IN BOOLEAN MODE)
+          AND (:conversationId IS NULL OR m.conversation_id = :conversationId)
+          AND (:beforeId IS NULL OR m.id < :beforeId)
+        ORDER BY m.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Long> searchIdsFullText(
+            @Param("userId") Long userId,
+            @Param("query") String query,
+            @Param("conversationId") Long conversationId,
+            @Param("beforeId") Long beforeId,
+            @Param("limit") int limit);
+
     // Compter les messages non lus (envoyés par d'autres)
     @Query("""
         SELECT COUNT(m) FROM Message m
@@ -49,4 +171,99 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     void markAllAsRead(
             @Param("conversationId") Long conversationId,
             @Param("userId") Long userId);
-}
\ No newline at end of file
+
+    // =========================================================================
+    // Lecture en masse : une requête quel que soit le nombre de messages
+    // =========================================================================
+
+    // Expéditeurs (autres que le lecteur) des messages encore non lus d'une liste
+    @Query("""
+        SELECT DISTINCT m.sender.username FROM Message m
+        WHERE m.conversation.id = :conversationId
+          AND m.id IN :messageIds
+          AND m.sender.id <> :userId
+          AND m.isRead = false
+        """)
+    List<String> findUnreadSenderUsernames(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId,
+            @Param("messageIds") Collection<Long> messageIds);
+
+    @Modifying
+    @Query("""
+        UPDATE Message m
+        SET m.isRead = true, m.readAt = CURRENT_TIMESTAMP
+        WHERE m.conversation.id = :conversationId
+          AND m.id IN :messageIds
+          AND m.sender.id <> :userId
+          AND m.isRead = false
+        """)
+    int markAsReadByIds(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId,
+            @Param("messageIds") Collection<Long> messageIds);
+
+    // Messages des autres postérieurs au filigrane du lecteur, du plus ancien
+    // au plus récent (préfixe lu du mode ids)
+    @Query("""
+        SELECT m.id FROM Message m
+        WHERE m.conversation.id = :conversationId
+          AND m.sender.id <> :userId
+          AND m.id > COALESCE((
+                SELECT s.lastReadMessageId FROM ConversationParticipantState s
+                WHERE s.conversation.id = :conversationId
+                  AND s.user.id = :userId), 0)
+        ORDER BY m.id ASC
+        """)
+    List<Long> findIdsAfterReadWatermark(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId,
+            Pageable pageable);
+
+    // Expéditeurs des messages non lus jusqu'à un message (null = tous)
+    @Query("""
+        SELECT DISTINCT m.sender.username FROM Message m
+        WHERE m.conversation.id = :conversationId
+          AND m.sender.id <> :userId
+          AND m.isRead = false
+          AND (:upToMessageId IS NULL OR m.id <= :upToMessageId)
+        """)
+    List<String> findUnreadSenderUsernamesUpTo(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId,
+            @Param("upToMessageId") Long upToMessageId);
+
+    // Lu jusqu'au message donné inclus (watermark)
+    @Modifying
+    @Query("""
+        UPDATE Message m
+        SET m.isRead = true, m.readAt = CURRENT_TIMESTAMP
+        WHERE m.conversation.id = :conversationId
+          AND m.sender.id <> :userId
+          AND m.isRead = false
+          AND m.id <= :upToMessageId
+        """)
+    int markAsReadUpTo(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId,
+            @Param("upToMessageId") Long upToMessageId);
+
+    // =========================================================================
+    // Suppression d'une conversation, sans charger ses messages
+    // =========================================================================
+
+    // Réponses (de cette conversation ou d'une autre) citant un message supprimé :
+    // InnoDB vérifie la clé parent_message_id ligne par ligne pendant le DELETE
+    @Modifying
+    @Query(value = """
+        UPDATE messages child
+        JOIN messages parent ON child.parent_message_id = parent.id
+        SET child.parent_message_id = NULL
+        WHERE parent.conversation_id = :conversationId
+        """, nativeQuery = true)
+    int detachRepliesToConversation(@Param("conversationId") Long conversationId);
+
+    @Modifying
+    @Query("DELETE FROM Message m WHERE m.conversation.id = :conversationId")
+    int deleteByConversationId(@Param("conversationId") Long conversationId);
+}
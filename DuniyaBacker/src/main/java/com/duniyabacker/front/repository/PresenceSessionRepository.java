@@ -0,0 +1,82 @@
+package com.duniyabacker.front.repository;
+
+import com.duniyabacker.front.entity.chat.PresenceSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PresenceSessionRepository extends JpaRepository<PresenceSession, String> {
+
+    @Query("""
+        SELECT COUNT(s) FROM PresenceSession s
+        WHERE s.username = :username
+          AND s.leaseExpiresAt > :now
+        """)
+    long countActiveSessions(
+            @Param("username") String username,
+            @Param("now") LocalDateTime now);
+
+    // Présence en lot : utilisateurs ayant au moins une session non expirée
+    @Query("""
+        SELECT DISTINCT s.username FROM PresenceSession s
+        WHERE s.username IN :usernames
+          AND s.leaseExpiresAt > :now
+        """)
+    List<String> findOnlineUsernames(
+            @Param("usernames") Collection<String> usernames,
+            @Param("now") LocalDateTime now);
+
+    @Query("SELECT s.username FROM PresenceSession s WHERE s.sessionId = :sessionId")
+    Optional<String> findUsernameBySessionId(@Param("sessionId") String sessionId);
+
+    // Sessions ouvertes sur un nœud (rapprochement avec le registre STOMP)
+    @Query("SELECT s.sessionId FROM PresenceSession s WHERE s.nodeId = :nodeId")
+    List<String> findSessionIdsByNodeId(@Param("nodeId") String nodeId);
+
+    // Sessions de nœuds tombés (bail non renouvelé)
+    @Query("SELECT s FROM PresenceSession s WHERE s.leaseExpiresAt <= :now")
+    List<PresenceSession> findExpired(@Param("now") LocalDateTime now);
+
+    // =========================================================================
+    // Verrou par utilisateur (table presence_user_locks, migration V6) :
+    // ON DUPLICATE KEY UPDATE crée la ligne ou la verrouille en exclusif,
+    // jusqu'à la fin de la transaction
+    // =========================================================================
+    @Modifying
+    @Query(value = """
+        INSERT INTO presence_user_locks (username, locked_at)
+        VALUES (:username, CURRENT_TIMESTAMP(6))
+        ON DUPLICATE KEY UPDATE locked_at = CURRENT_TIMESTAMP(6)
+        """, nativeQuery = true)
+    void lockUser(@Param("username") String username);
+
+    // =========================================================================
+    // Baux
+    // =========================================================================
+
+    @Modifying
+    @Query("""
+        UPDATE PresenceSession s
+        SET s.leaseExpiresAt = :expiresAt
+        WHERE s.nodeId = :nodeId
+        """)
+    int renewLeases(
+            @Param("nodeId") String nodeId,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM PresenceSession s WHERE s.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") String sessionId);
+
+    @Modifying
+    @Query("DELETE FROM PresenceSession s WHERE s.nodeId = :nodeId")
+    int deleteByNodeId(@Param("nodeId") String nodeId);
+}
@@ -28,6 +28,26 @@ public interface ProjetB2BRepository extends JpaRepository<ProjetB2B, Long> {
             "ORDER BY p.updatedAt DESC")
     List<ProjetB2B> findByUserIdAsCreatorOrParticipant(@Param("userId") Long userId);
 
+    /**
+     * Participants des projets dont l'utilisateur est créateur ou participant
+     * (graphe des contacts pour la présence)
+     */
+    @Query("SELECT DISTINCT other.username FROM ProjetB2B p " +
+            "JOIN p.participants other " +
+            "LEFT JOIN p.participants me ON me.username = :username " +
+            "WHERE (p.createur.username = :username OR me.id IS NOT NULL) " +
+            "AND other.username <> :username")
+    List<String> findProjectParticipantUsernames(@Param("username") String username);
+
+    /**
+     * Créateurs des projets auxquels l'utilisateur participe
+     */
+    @Query("SELECT DISTINCT p.createur.username FROM ProjetB2B p " +
+            "JOIN p.participants me " +
+            "WHERE me.username = :username " +
+            "AND p.createur.username <> :username")
+    List<String> findProjectCreatorUsernames(@Param("username") String username);
+
     /**
      * Trouver les projets par statut pour un utilisateur
      */
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -50,13 +51,70 @@ public interface PublicationRepository extends JpaRepository<Publication, Long>
             Pageable pageable
     );
 
-    /** Recherche fulltext basique. */
+    /** Publications par ids, avec auteur et visibilité (résultats de recherche). */
     @Query("""
         SELECT DISTINCT p FROM Publication p
-        WHERE p.statut = 'PUBLIE'
-          AND (LOWER(p.titre) LIKE LOWER(CONCAT('%', :q, '%'))
-               OR LOWER(p.contenu) LIKE LOWER(CONCAT('%', :q, '%')))
-        ORDER BY p.createdAt DESC
+        LEFT JOIN FETCH p.auteur
+        LEFT JOIN FETCH p.typesEntreprisesVisibles
+        WHERE p.id IN :ids
     """)
-    List<Publication> search(@Param("q") String q);
+    List<Publication> findAllWithAuteur(@Param("ids") Collection<Long> ids);
+
+    /*
+     * Recherche plein texte (index ftx_publications_*), filtrée par visibilité
+     * dans la requête comme le feed. Classement par pertinence, titre pondéré ;
+     * q au format du mode booléen (FullTextQuery).
+     */
+
+    /** Recherche : publications visibles pour un type d'entreprise. */
+    @Query(value = """
+        SELECT p.id FROM publications p
+        WHERE p.statut = 'PUBLIE'
+          AND MATCH(p.titre, p.contenu) AGAINST (:q IN BOOLEAN MODE)
+          AND (NOT EXISTS (SELECT 1 FROM publication_visibilite v
+                           WHERE v.publication_id = p.id)
+               OR EXISTS (SELECT 1 FROM publication_visibilite v
+                          WHERE v.publication_id = p.id
+                            AND v.type_entreprise = :typeEntreprise))
+        ORDER BY MATCH(p.titre) AGAINST (:q IN BOOLEAN MODE) * 2
+                 + MATCH(p.titre, p.contenu) AGAINST (:q IN BOOLEAN MODE) DESC,
+                 p.created_at DESC
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Long> searchIdsVisiblePourType(
+            @Param("q") String q,
+            @Param("typeEntreprise") String typeEntreprise,
+            @Param("limit") int limit
+    );
+
+    /** Recherche : publications ouvertes aux comptes PARTICULIER. */
+    @Query(value = """
+        SELECT p.id FROM publications p
+        WHERE p.statut = 'PUBLIE'
+          AND p.autorise_particuliers = true
+          AND MATCH(p.titre, p.contenu) AGAINST (:q IN BOOLEAN MODE)
+        ORDER BY MATCH(p.titre) AGAINST (:q IN BOOLEAN MODE) * 2
+                 + MATCH(p.titre, p.contenu) AGAINST (:q IN BOOLEAN MODE) DESC,
+                 p.created_at DESC
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Long> searchIdsVisiblePourParticulier(
+            @Param("q") String q,
+            @Param("limit") int limit
+    );
+
+    /** Recherche : toutes les publications publiées. */
+    @Query(value = """
+        SELECT p.id FROM publications p
+        WHERE p.statut = 'PUBLIE'
+          AND MATCH(p.titre, p.contenu) AGAINST (:q IN BOOLEAN MODE)
+        ORDER BY MATCH(p.titre) AGAINST (:q IN BOOLEAN MODE) * 2
+                 + MATCH(p.titre, p.contenu) AGAINST (:q IN BOOLEAN MODE) DESC,
+                 p.created_at DESC
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Long> searchIdsPubliees(
+            @Param("q") String q,
+            @Param("limit") int limit
+    );
 }
\ No newline at end of file
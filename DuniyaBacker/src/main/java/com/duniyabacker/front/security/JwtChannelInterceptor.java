@@ -1,5 +1,6 @@
 package com.duniyabacker.front.security;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
@@ -37,10 +38,11 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String jwt = authHeader.substring(7);
                 try {
-                    String username = jwtService.extractUsername(jwt);
+                    Claims claims = jwtService.parseVerifiedClaims(jwt);
+                    String username = claims.getSubject();
                     if (username != null) {
                         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                        if (jwtService.isTokenValid(jwt, userDetails)) {
+                        if (jwtService.isTokenValid(claims, userDetails)) {
                             UsernamePasswordAuthenticationToken authToken =
                                     new UsernamePasswordAuthenticationToken(
                                             userDetails, null, userDetails.getAuthorities());
@@ -1,15 +1,22 @@
 package com.duniyabacker.front.security;
 
+import com.duniyabacker.front.service.TtlCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -25,15 +32,53 @@ public class JwtService {
     @Value("${jwt.refresh-expiration}")
     private long refreshExpiration;
 
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+
+    // Construits une seule fois : le secret ne change pas à chaud
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Tokens déjà vérifiés, indexés par SHA-256 du token, jusqu'à leur expiration
+    private TtlCache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void initSigningKey() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokens = new TtlCache<>(verifiedCacheMaxSize, 0);
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseVerifiedClaims(token);
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Vérifie la signature et l'expiration du token en un seul parsing et
+     * retourne ses claims. Lève une JwtException si le token est invalide
+     * ou expiré. Un token déjà vérifié est servi depuis le cache.
+     */
+    public Claims parseVerifiedClaims(String token) {
+        String key = hash(token);
+
+        Claims cached = verifiedTokens.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        cacheVerifiedClaims(key, claims);
+        return claims;
+    }
+
     public String generateToken(UserDetails userDetails) {
         return generateToken(new HashMap<>(), userDetails);
     }
@@ -52,34 +97,59 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(parseVerifiedClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Variante sans re-parsing, pour un appelant qui détient déjà les claims
+     * vérifiés (JwtAuthenticationFilter, JwtChannelInterceptor).
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !isExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // =========================================================================
+    // Cache des tokens vérifiés
+    // =========================================================================
+
+    private void cacheVerifiedClaims(String key, Claims claims) {
+        // Sans expiration, le token ne serait jamais purgé : pas de cache
+        if (claims.getExpiration() == null) {
+            return;
+        }
+
+        // L'entrée expire avec le token : un token expiré n'est plus servi
+        // depuis le cache et repasse par le parser, qui lève ExpiredJwtException
+        verifiedTokens.put(key, claims, claims.getExpiration().getTime());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.verified-cache.cleanup-ms:300000}")
+    public void purgeExpiredTokens() {
+        verifiedTokens.purgeExpired();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 est garanti par toute JVM
+            throw new IllegalStateException(e);
+        }
     }
 
     public long getExpirationTime() {
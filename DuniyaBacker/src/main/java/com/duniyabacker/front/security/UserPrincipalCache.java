@@ -0,0 +1,74 @@
+package com.duniyabacker.front.security;
+
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.service.TtlCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Cache borné (taille + TTL) des utilisateurs résolus par CustomUserDetailsService.
+ *
+ * Chaque requête authentifiée résolvait le principal via findByUsernameOrEmail
+ * (jointure sur toutes les tables de l'héritage JOINED). Les entrées sont des
+ * entités détachées, en lecture seule : ne jamais les modifier ni naviguer
+ * leurs associations LAZY. Toute modification de profil, de mot de passe,
+ * de rôle ou d'activation doit appeler evict().
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache {
+
+    @Value("${app.security.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.security.user-cache.max-size:10000}")
+    private int maxSize;
+
+    private TtlCache<String, User> entries;
+
+    @PostConstruct
+    void initCache() {
+        entries = new TtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    // =========================================================================
+    // Lecture / écriture
+    // =========================================================================
+
+    public Optional<User> get(String login) {
+        return Optional.ofNullable(entries.get(login));
+    }
+
+    public void put(String login, User user) {
+        entries.put(login, user);
+    }
+
+    // =========================================================================
+    // Invalidation
+    // =========================================================================
+
+    /**
+     * Retire toutes les entrées d'un utilisateur (clé username et clé email).
+     * Si une transaction est en cours, l'éviction est rejouée après sa fin :
+     * une requête concurrente a pu recharger l'ancienne version avant le commit.
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+
+        entries.invalidateIf(user -> userId.equals(user.getId()));
+
+        log.debug("Principal évincé du cache (userId={})", userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.user-cache.cleanup-ms:60000}")
+    public void purgeExpired() {
+        entries.purgeExpired();
+    }
+}
@@ -9,6 +9,7 @@ import com.duniyabacker.front.entity.auth.Particulier;
 import com.duniyabacker.front.exception.CustomExceptions.*;
 import com.duniyabacker.front.repository.*;
 import com.duniyabacker.front.security.JwtService;
+import com.duniyabacker.front.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -33,6 +34,7 @@ public class AuthService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final UserPrincipalCache userPrincipalCache;
 
     public void validatePasswordConfirmation(String passworde,  String confirmation) {
         if (!passworde.equals(confirmation)) {
@@ -167,6 +169,7 @@ public class AuthService {
         user.setEnabled(true);
         user.setVerificationToken(null);
         userRepository.save(user);
+        userPrincipalCache.evict(user.getId());
 
         log.info("Email vérifié pour: {}", user.getUsername());
 
@@ -208,6 +211,7 @@ public class AuthService {
         user.setResetPasswordToken(null);
         user.setResetPasswordTokenExpiry(null);
         userRepository.save(user);
+        userPrincipalCache.evict(user.getId());
 
         log.info("Mot de passe réinitialisé pour: {}", user.getUsername());
 
@@ -0,0 +1,21 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.dto.response.ChatNotification;
+
+import java.util.List;
+
+/**
+ * Notification à diffuser aux participants d'une conversation, publiée par
+ * ChatService pendant la transaction et envoyée par ChatFanoutService après
+ * le commit.
+ *
+ * @param recipients          usernames destinataires sur /user/queue/messages
+ * @param toConversationTopic publier aussi sur /topic/conversation.{id}
+ */
+public record ChatFanoutEvent(
+        Long conversationId,
+        List<String> recipients,
+        boolean toConversationTopic,
+        ChatNotification notification
+) {
+}
@@ -0,0 +1,90 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.config.ChatFanoutConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diffusion WebSocket des notifications de chat, après le commit et sur un
+ * pool dédié : la réponse HTTP de l'expéditeur n'attend plus l'envoi à
+ * chaque participant, et un rollback n'émet plus de notification fantôme.
+ *
+ * La notification est sérialisée une seule fois (StompBroadcaster), puis
+ * le même tableau d'octets est envoyé à tous les destinataires.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatFanoutService {
+
+    private static final String USER_QUEUE = "/queue/messages";
+
+    private final StompBroadcaster stompBroadcaster;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.fanout.slow-threshold-ms:500}")
+    private long slowThresholdMs;
+
+    @Async(ChatFanoutConfig.CHAT_FANOUT_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFanout(ChatFanoutEvent event) {
+        long start = System.nanoTime();
+
+        EncodedPayload payload;
+        try {
+            payload = stompBroadcaster.encode(event.notification());
+        } catch (MessageConversionException e) {
+            log.error("Notification {} non diffusée (conversation {}): {}",
+                    event.notification().getType(), event.conversationId(), e.getMessage());
+            return;
+        }
+
+        int failures = stompBroadcaster.sendToUsers(event.recipients(), USER_QUEUE, payload);
+
+        if (event.toConversationTopic()) {
+            stompBroadcaster.send(WebSocketConfig.CONVERSATION_TOPIC_PREFIX + event.conversationId(), payload);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        recordLatency(event, elapsedNanos);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMs >= slowThresholdMs) {
+            log.warn("Fan-out lent : conversation={}, type={}, destinataires={}, échecs={}, {} ms",
+                    event.conversationId(), event.notification().getType(),
+                    event.recipients().size(), failures, elapsedMs);
+        } else {
+            log.debug("Fan-out : conversation={}, type={}, destinataires={}, {} ms",
+                    event.conversationId(), event.notification().getType(),
+                    event.recipients().size(), elapsedMs);
+        }
+    }
+
+    // Tags bornés (type + taille du groupe) : pas un tag par conversation
+    private void recordLatency(ChatFanoutEvent event, long elapsedNanos) {
+        Timer.builder("chat.fanout.duration")
+                .description("Durée de diffusion d'une notification aux participants d'une conversation")
+                .tag("type", String.valueOf(event.notification().getType()))
+                .tag("recipients", recipientBucket(event.recipients().size()))
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String recipientBucket(int count) {
+        if (count <= 1)   return "1";
+        if (count <= 10)  return "2-10";
+        if (count <= 50)  return "11-50";
+        if (count <= 200) return "51-200";
+        return "200+";
+    }
+}
@@ -6,19 +6,36 @@ import com.duniyabacker.front.entity.User;
 import com.duniyabacker.front.entity.auth.Employe;
 import com.duniyabacker.front.entity.auth.Entreprise;
 import com.duniyabacker.front.entity.auth.Particulier;
+import com.duniyabacker.front.entity.chat.ChatChange;
+import com.duniyabacker.front.entity.chat.ChatChange.ChangeType;
 import com.duniyabacker.front.entity.chat.Conversation;
+import com.duniyabacker.front.entity.chat.ConversationParticipantState;
 import com.duniyabacker.front.entity.chat.Message;
 import com.duniyabacker.front.exception.CustomExceptions.*;
+import com.duniyabacker.front.repository.ChatChangeRepository;
+import com.duniyabacker.front.repository.ConversationDepartureRepository;
+import com.duniyabacker.front.repository.ConversationParticipantStateRepository;
 import com.duniyabacker.front.repository.ConversationRepository;
 import com.duniyabacker.front.repository.EmployeRepository;
 import com.duniyabacker.front.repository.EntrepriseRepository;
 import com.duniyabacker.front.repository.MessageRepository;
 import com.duniyabacker.front.repository.UserRepository;
+import com.duniyabacker.front.security.UserPrincipalCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,9 +53,34 @@ public class ChatService {
     private final UserRepository userRepository;
     private final EntrepriseRepository entrepriseRepository;
     private final EmployeRepository employeRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     private final PresenceService presenceService;
     private final EmailService emailService;
+    private final ChatChangeRepository chatChangeRepository;
+    private final ConversationParticipantStateRepository participantStateRepository;
+    private final ConversationDepartureRepository departureRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ContactGraphService contactGraphService;
+    private final ConversationMembershipCache membershipCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.chat.sync.retention-days:7}")
+    private int syncRetentionDays;
+
+    // Durée maximale attendue entre l'insertion d'un changement et son commit
+    @Value("${app.chat.sync.settle-seconds:5}")
+    private long syncSettleSeconds;
+
+    private static final int SYNC_DEFAULT_LIMIT = 200;
+    private static final int SYNC_MAX_LIMIT     = 500;
+    private static final int PRESENCE_MAX_USERS = 500;
+    private static final int MESSAGES_DEFAULT_LIMIT = 50;
+    private static final int MESSAGES_MAX_LIMIT     = 100;
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 64;
+    private static final int SEARCH_DEFAULT_LIMIT = 20;
+    private static final int SEARCH_MAX_LIMIT     = 50;
 
     // =========================================================================
     // Créer une nouvelle conversation (usage interne / général)
@@ -48,8 +90,7 @@ public class ChatService {
             String username,
             CreateConversationRequest request
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         List<User> participants = new ArrayList<>();
         participants.add(currentUser);
@@ -62,14 +103,15 @@ public class ChatService {
             }
         }
 
+        String pairKey = null;
         if (!request.isGroup() && participants.size() == 2) {
             User otherUser = participants.stream()
                     .filter(p -> !p.getId().equals(currentUser.getId()))
                     .findFirst()
                     .orElseThrow();
 
-            var existing = conversationRepository.findPrivateConversation(
-                    currentUser.getId(), otherUser.getId());
+            pairKey = Conversation.privatePairKey(currentUser.getId(), otherUser.getId());
+            var existing = conversationRepository.findByPrivatePairKey(pairKey);
 
             if (existing.isPresent()) {
                 return ApiResponse.success("Conversation existante",
@@ -80,11 +122,15 @@ public class ChatService {
         Conversation conversation = Conversation.builder()
                 .name(request.getName())
                 .isGroup(request.isGroup())
+                .privatePairKey(pairKey)
                 .createdBy(currentUser)
                 .build();
 
         participants.forEach(conversation::addParticipant);
         conversationRepository.save(conversation);
+        initParticipantStates(conversation, participants);
+        invalidateContacts(conversation);
+        recordChange(ChangeType.CONVERSATION_UPDATED, conversation.getId());
 
         log.info("Conversation créée: {} par {}", conversation.getName(), username);
         return ApiResponse.success("Conversation créée avec succès",
@@ -100,8 +146,7 @@ public class ChatService {
             Long conversationId,
             String newName
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -116,6 +161,7 @@ public class ChatService {
 
         conversation.setUpdatedAt(LocalDateTime.now());
         conversationRepository.save(conversation);
+        recordChange(ChangeType.CONVERSATION_UPDATED, conversationId);
 
         log.info("Conversation {} mise à jour par {}", conversationId, username);
         return ApiResponse.success("Conversation mise à jour",
@@ -131,8 +177,7 @@ public class ChatService {
             Long conversationId,
             List<Long> participantIds
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -145,22 +190,31 @@ public class ChatService {
             throw new ForbiddenException("Vous n'êtes pas participant de cette conversation");
         }
 
-        int added = 0;
+        List<User> newMembers = new ArrayList<>();
         for (Long participantId : participantIds) {
             if (!conversationRepository.isUserParticipant(conversationId, participantId)) {
                 User participant = userRepository.findById(participantId)
                         .orElseThrow(() -> new ResourceNotFoundException(
                                 "Utilisateur non trouvé: " + participantId));
                 conversation.addParticipant(participant);
-                added++;
+                newMembers.add(participant);
             }
         }
+        int added = newMembers.size();
 
         conversation.setUpdatedAt(LocalDateTime.now());
         conversationRepository.save(conversation);
+        initParticipantStates(conversation, newMembers);
+        if (added > 0) {
+            departureRepository.deleteByConversationAndUsers(conversationId,
+                    newMembers.stream().map(User::getId).collect(Collectors.toList()));
+        }
+        invalidateContacts(conversation);
 
         // Message système
         if (added > 0) {
+            recordChange(ChangeType.CONVERSATION_UPDATED, conversationId);
+
             Message systemMsg = Message.builder()
                     .content("👥 " + getUserDisplayName(currentUser) + " a ajouté "
                             + added + " participant(s) au groupe")
@@ -169,10 +223,11 @@ public class ChatService {
                     .conversation(conversation)
                     .build();
             messageRepository.save(systemMsg);
+            long syncToken = registerNewMessage(systemMsg);
 
             // Notifier le groupe
             broadcastToConversation(conversation, currentUser, "NEW_MESSAGE",
-                    mapToMessageResponse(systemMsg));
+                    mapToMessageResponse(systemMsg), syncToken);
         }
 
         log.info("{} participants ajoutés à la conversation {} par {}",
@@ -190,8 +245,7 @@ public class ChatService {
             Long conversationId,
             Long userId
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -210,6 +264,11 @@ public class ChatService {
         conversation.removeParticipant(targetUser);
         conversation.setUpdatedAt(LocalDateTime.now());
         conversationRepository.save(conversation);
+        participantStateRepository.deleteByConversationAndUser(conversationId, targetUser.getId());
+        departureRepository.recordDeparture(conversationId, targetUser.getId());
+        invalidateContacts(conversation, targetUser);
+        recordChange(ChangeType.CONVERSATION_REMOVED, conversationId, null, targetUser.getId());
+        recordChange(ChangeType.CONVERSATION_UPDATED, conversationId);
 
         // Message système
         Message systemMsg = Message.builder()
@@ -220,6 +279,7 @@ public class ChatService {
                 .conversation(conversation)
                 .build();
         messageRepository.save(systemMsg);
+        registerNewMessage(systemMsg);
 
         log.info("Participant {} retiré de la conversation {} par {}",
                 userId, conversationId, username);
@@ -234,8 +294,7 @@ public class ChatService {
             String username,
             Long conversationId
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -251,6 +310,20 @@ public class ChatService {
         conversation.removeParticipant(currentUser);
         conversation.setUpdatedAt(LocalDateTime.now());
         conversationRepository.save(conversation);
+        participantStateRepository.deleteByConversationAndUser(conversationId, currentUser.getId());
+        departureRepository.recordDeparture(conversationId, currentUser.getId());
+        invalidateContacts(conversation, currentUser);
+        recordChange(ChangeType.CONVERSATION_REMOVED, conversationId, null, currentUser.getId());
+
+        // Si le groupe est vide, le supprimer (inutile d'y écrire le message système)
+        if (conversation.getParticipants().isEmpty()) {
+            purgeConversation(conversation);
+            log.info("Conversation {} supprimée (vide)", conversationId);
+            log.info("Utilisateur {} a quitté la conversation {}", username, conversationId);
+            return ApiResponse.success("Vous avez quitté le groupe");
+        }
+
+        recordChange(ChangeType.CONVERSATION_UPDATED, conversationId);
 
         // Message système
         Message systemMsg = Message.builder()
@@ -260,12 +333,7 @@ public class ChatService {
                 .conversation(conversation)
                 .build();
         messageRepository.save(systemMsg);
-
-        // Si le groupe est vide, le supprimer
-        if (conversation.getParticipants().isEmpty()) {
-            conversationRepository.delete(conversation);
-            log.info("Conversation {} supprimée (vide)", conversationId);
-        }
+        registerNewMessage(systemMsg);
 
         log.info("Utilisateur {} a quitté la conversation {}", username, conversationId);
         return ApiResponse.success("Vous avez quitté le groupe");
@@ -279,8 +347,7 @@ public class ChatService {
             String username,
             Long conversationId
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -289,6 +356,13 @@ public class ChatService {
             throw new ForbiddenException("Vous n'êtes pas participant de cette conversation");
         }
 
+        // Journal de synchronisation : chaque participant perd la conversation
+        Long syncToken = null;
+        for (User participant : conversation.getParticipants()) {
+            syncToken = recordChange(ChangeType.CONVERSATION_REMOVED,
+                    conversationId, null, participant.getId());
+        }
+
         // Notifier les participants avant suppression
         ChatNotification notification = ChatNotification.builder()
                 .type("CONVERSATION_DELETED")
@@ -296,19 +370,13 @@ public class ChatService {
                 .userId(currentUser.getId())
                 .username(currentUser.getUsername())
                 .timestamp(LocalDateTime.now())
+                .syncToken(syncToken)
                 .build();
 
-        conversation.getParticipants().forEach(participant -> {
-            if (!participant.getId().equals(currentUser.getId())) {
-                messagingTemplate.convertAndSendToUser(
-                        participant.getUsername(),
-                        "/queue/messages",
-                        notification
-                );
-            }
-        });
+        publishToParticipants(conversation, currentUser.getId(), notification, false);
 
-        conversationRepository.delete(conversation);
+        invalidateContacts(conversation);
+        purgeConversation(conversation);
 
         log.info("Conversation {} supprimée par {}", conversationId, username);
         return ApiResponse.success("Conversation supprimée");
@@ -323,8 +391,7 @@ public class ChatService {
             Long messageId,
             String newContent
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Message non trouvé"));
@@ -351,6 +418,9 @@ public class ChatService {
 
         // Notifier les participants de l'édition
         Conversation conversation = message.getConversation();
+        long syncToken = recordChange(ChangeType.MESSAGE_EDITED,
+                conversation.getId(), messageId, null);
+
         ChatNotification notification = ChatNotification.builder()
                 .type("MESSAGE_EDITED")
                 .conversationId(conversation.getId())
@@ -358,23 +428,11 @@ public class ChatService {
                 .userId(currentUser.getId())
                 .username(currentUser.getUsername())
                 .timestamp(LocalDateTime.now())
+                .syncToken(syncToken)
                 .build();
 
-        conversation.getParticipants().forEach(participant -> {
-            if (!participant.getId().equals(currentUser.getId())) {
-                messagingTemplate.convertAndSendToUser(
-                        participant.getUsername(),
-                        "/queue/messages",
-                        notification
-                );
-            }
-        });
-
-        // Aussi sur le topic de la conversation
-        messagingTemplate.convertAndSend(
-                "/topic/conversation/" + conversation.getId(),
-                notification
-        );
+        // Participants + topic de la conversation
+        publishToParticipants(conversation, currentUser.getId(), notification, true);
 
         log.info("Message {} modifié par {}", messageId, username);
         return ApiResponse.success("Message modifié", response);
@@ -388,8 +446,7 @@ public class ChatService {
             String username,
             Long messageId
     ) {
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(username);
 
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Message non trouvé"));
@@ -402,6 +459,9 @@ public class ChatService {
         Conversation conversation = message.getConversation();
         Long conversationId = conversation.getId();
 
+        long syncToken = recordChange(ChangeType.MESSAGE_DELETED,
+                conversationId, messageId, null);
+
         // Notifier avant suppression
         ChatNotification notification = ChatNotification.builder()
                 .type("MESSAGE_DELETED")
@@ -409,6 +469,7 @@ public class ChatService {
                 .userId(currentUser.getId())
                 .username(currentUser.getUsername())
                 .timestamp(LocalDateTime.now())
+                .syncToken(syncToken)
                 .build();
         // On ajoute le messageId dans un champ message fictif pour le transmettre
         MessageResponse deletedRef = MessageResponse.builder()
@@ -417,23 +478,19 @@ public class ChatService {
                 .build();
         notification.setMessage(deletedRef);
 
-        conversation.getParticipants().forEach(participant -> {
-            if (!participant.getId().equals(currentUser.getId())) {
-                messagingTemplate.convertAndSendToUser(
-                        participant.getUsername(),
-                        "/queue/messages",
-                        notification
-                );
-            }
-        });
-
-        messagingTemplate.convertAndSend(
-                "/topic/conversation/" + conversationId,
-                notification
-        );
+        publishToParticipants(conversation, currentUser.getId(), notification, true);
 
+        // États des participants : compteur de non lus et dernier message
+        participantStateRepository.discardUnreadMessage(
+                conversationId, currentUser.getId(), messageId);
         messageRepository.delete(message);
 
+        Message newLast = messageRepository.findLastMessage(conversationId);
+        participantStateRepository.replaceLastMessage(
+                conversationId, messageId,
+                newLast != null ? newLast.getId() : null,
+                newLast != null ? newLast.getCreatedAt() : null);
+
         log.info("Message {} supprimé par {}", messageId, username);
         return ApiResponse.success("Message supprimé");
     }
@@ -446,6 +503,7 @@ public class ChatService {
             String username,
             Long targetEntrepriseId
     ) {
+        // Lecture en base (pas le principal en cache) : employe.getEntreprise() est LAZY
         User currentUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
 
@@ -473,11 +531,12 @@ public class ChatService {
         Long sourceEntrepriseUserId = sourceEntrepriseUser.getId();
         Long targetEntrepriseUserId = targetEntreprise.getId();
 
-        Optional<Conversation> existing = conversationRepository.findB2BConversation(
-                sourceEntrepriseUserId, targetEntrepriseUserId);
+        String pairKey = Conversation.b2bPairKey(sourceEntrepriseUserId, targetEntrepriseUserId);
+        Optional<Conversation> existing = conversationRepository.findByB2bPairKey(pairKey);
 
         if (existing.isPresent()) {
             log.info("Conversation B2B existante trouvée : {}", existing.get().getId());
+            syncB2BParticipants(existing.get(), currentUser, sourceEntrepriseUserId, targetEntrepriseUserId);
             return ApiResponse.success("Conversation B2B existante",
                     mapToConversationResponse(existing.get(), currentUser.getId()));
         }
@@ -525,11 +584,15 @@ public class ChatService {
         Conversation conversation = Conversation.builder()
                 .name(convName)
                 .isGroup(true)
+                .b2bPairKey(pairKey)
                 .createdBy(currentUser)
                 .build();
 
         participants.forEach(conversation::addParticipant);
         conversationRepository.save(conversation);
+        initParticipantStates(conversation, participants);
+        invalidateContacts(conversation);
+        recordChange(ChangeType.CONVERSATION_UPDATED, conversation.getId());
 
         Message systemMsg = Message.builder()
                 .content("💼 Conversation professionnelle ouverte entre "
@@ -539,6 +602,7 @@ public class ChatService {
                 .conversation(conversation)
                 .build();
         messageRepository.save(systemMsg);
+        registerNewMessage(systemMsg);
 
         log.info("Conversation B2B créée : {} ({} participants)",
                 convName, participants.size());
@@ -552,8 +616,7 @@ public class ChatService {
     // =========================================================================
     @Transactional(readOnly = true)
     public ApiResponse<Map<String, Object>> searchUserByEmail(String currentUsername, String email) {
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(currentUsername);
 
         User target = userRepository.findByEmail(email).orElse(null);
         if (target == null) {
@@ -570,6 +633,63 @@ public class ChatService {
         return ApiResponse.success("Utilisateur trouvé", result);
     }
 
+    /**
+     * Conversation B2B existante : n'ajoute que les membres manquants
+     * (initiateur, employés arrivés depuis) et ne retire que les employés
+     * désactivés des deux entreprises, à partir des seuls ids. Les membres
+     * partis ou retirés explicitement ne sont pas réintégrés, sauf
+     * l'initiateur qui rouvre lui-même la conversation. Dans le cas courant
+     * (rien n'a changé) aucune entité n'est chargée ni écrite.
+     */
+    private void syncB2BParticipants(
+            Conversation conversation,
+            User currentUser,
+            Long sourceEntrepriseUserId,
+            Long targetEntrepriseUserId
+    ) {
+        Long conversationId = conversation.getId();
+        Set<Long> currentIds = new HashSet<>(conversationRepository.findParticipantIds(conversationId));
+        List<Long> entrepriseIds = List.of(sourceEntrepriseUserId, targetEntrepriseUserId);
+
+        Set<Long> missingIds = new LinkedHashSet<>(entrepriseIds);
+        missingIds.addAll(employeRepository.findIdsByEntrepriseIdsAndEnabled(entrepriseIds, true));
+        missingIds.removeAll(departureRepository.findUserIds(conversationId));
+        missingIds.add(currentUser.getId());
+        missingIds.removeAll(currentIds);
+
+        Set<Long> disabledIds = new HashSet<>(
+                employeRepository.findIdsByEntrepriseIdsAndEnabled(entrepriseIds, false));
+        disabledIds.retainAll(currentIds);
+
+        if (missingIds.isEmpty() && disabledIds.isEmpty()) {
+            return;
+        }
+
+        List<User> added = userRepository.findAllById(missingIds);
+        added.forEach(conversation::addParticipant);
+        if (missingIds.contains(currentUser.getId())) {
+            departureRepository.deleteByConversationAndUsers(conversationId, List.of(currentUser.getId()));
+        }
+
+        List<User> removed = conversation.getParticipants().stream()
+                .filter(p -> disabledIds.contains(p.getId()))
+                .collect(Collectors.toList());
+        removed.forEach(conversation::removeParticipant);
+
+        conversation.setUpdatedAt(LocalDateTime.now());
+        conversationRepository.save(conversation);
+        initParticipantStates(conversation, added);
+        for (User former : removed) {
+            participantStateRepository.deleteByConversationAndUser(conversationId, former.getId());
+            recordChange(ChangeType.CONVERSATION_REMOVED, conversationId, null, former.getId());
+        }
+        invalidateContacts(conversation, removed.toArray(User[]::new));
+        recordChange(ChangeType.CONVERSATION_UPDATED, conversationId);
+
+        log.info("Conversation B2B {} synchronisée : {} ajouté(s), {} retiré(s)",
+                conversationId, added.size(), removed.size());
+    }
+
     // =========================================================================
     // Message privé — depuis le panneau Participants d'un groupe
     // =========================================================================
@@ -578,8 +698,7 @@ public class ChatService {
             String currentUsername,
             Long targetUserId
     ) {
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User currentUser = resolveCurrentUser(currentUsername);
 
         if (currentUser.getId().equals(targetUserId)) {
             throw new BadRequestException("Vous ne pouvez pas vous envoyer un message.");
@@ -589,8 +708,8 @@ public class ChatService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Utilisateur introuvable : " + targetUserId));
 
-        Optional<Conversation> existing = conversationRepository.findPrivateConversation(
-                currentUser.getId(), targetUserId);
+        String pairKey = Conversation.privatePairKey(currentUser.getId(), targetUserId);
+        Optional<Conversation> existing = conversationRepository.findByPrivatePairKey(pairKey);
 
         if (existing.isPresent()) {
             return ApiResponse.success("Conversation privée existante",
@@ -603,12 +722,16 @@ public class ChatService {
         Conversation conversation = Conversation.builder()
                 .name(convName)
                 .isGroup(false)
+                .privatePairKey(pairKey)
                 .createdBy(currentUser)
                 .build();
 
         conversation.addParticipant(currentUser);
         conversation.addParticipant(targetUser);
         conversationRepository.save(conversation);
+        initParticipantStates(conversation, List.of(currentUser, targetUser));
+        invalidateContacts(conversation);
+        recordChange(ChangeType.CONVERSATION_UPDATED, conversation.getId());
 
         log.info("Conversation privée créée entre {} et {}",
                 currentUsername, targetUser.getUsername());
@@ -620,6 +743,14 @@ public class ChatService {
     // =========================================================================
     // Envoyer un message
     // =========================================================================
+    /**
+     * Chemin d'envoi allégé : une seule lecture de la conversation (avec ses
+     * participants, qui servent au contrôle d'appartenance puis à la
+     * diffusion) et un UPDATE ciblé de updated_at au lieu d'un save complet.
+     *
+     * Avec une clé d'idempotence, un renvoi de la même requête (timeout,
+     * reconnexion) renvoie le message déjà enregistré sans nouvelle diffusion.
+     */
     @Transactional
     public ApiResponse<MessageResponse> sendMessage(
             String username,
@@ -628,15 +759,23 @@ public class ChatService {
             String messageType,
             String fileUrl,
             String fileName,
-            Long parentMessageId
+            Long parentMessageId,
+            String idempotencyKey
     ) {
-        User sender = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User sender = resolveCurrentUser(username);
 
-        Conversation conversation = conversationRepository.findById(conversationId)
+        String clientMessageId = normalizeIdempotencyKey(idempotencyKey);
+        if (clientMessageId != null) {
+            Optional<Message> existing = messageRepository.findByClientMessageId(sender.getId(), clientMessageId);
+            if (existing.isPresent()) {
+                return ApiResponse.success("Message déjà envoyé", toIdempotentResponse(existing.get(), conversationId));
+            }
+        }
+
+        Conversation conversation = conversationRepository.findWithParticipants(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
 
-        if (!conversationRepository.isUserParticipant(conversationId, sender.getId())) {
+        if (conversation.getParticipants().stream().noneMatch(p -> p.getId().equals(sender.getId()))) {
             throw new ForbiddenException("Vous n'êtes pas participant de cette conversation");
         }
 
@@ -646,36 +785,83 @@ public class ChatService {
                 .sender(sender)
                 .conversation(conversation)
                 .fileUrl(fileUrl)
-                .fileName(fileName);
+                .fileName(fileName)
+                .clientMessageId(clientMessageId);
 
+        // Le contenu du parent figure dans la réponse : la ligne est lue dans
+        // tous les cas, autant la restreindre à la conversation
         if (parentMessageId != null) {
-            messageRepository.findById(parentMessageId)
+            messageRepository.findByIdAndConversationId(parentMessageId, conversationId)
                     .ifPresent(messageBuilder::parentMessage);
         }
 
         Message message = messageBuilder.build();
         messageRepository.save(message);
 
-        conversation.setUpdatedAt(LocalDateTime.now());
-        conversationRepository.save(conversation);
+        conversationRepository.touchUpdatedAt(conversationId, message.getCreatedAt());
+        long syncToken = registerNewMessage(message);
 
         MessageResponse response = mapToMessageResponse(message);
 
-        broadcastToConversation(conversation, sender, "NEW_MESSAGE", response);
+        broadcastToConversation(conversation, sender, "NEW_MESSAGE", response, syncToken);
 
         log.info("Message envoyé dans la conversation {} par {}", conversationId, username);
         return ApiResponse.success("Message envoyé", response);
     }
 
+    /**
+     * Message enregistré par une requête concurrente portant la même clé
+     * d'idempotence (violation de l'unicité sender_id/client_message_id).
+     */
+    @Transactional(readOnly = true)
+    public Optional<ApiResponse<MessageResponse>> findSentMessage(
+            String username,
+            Long conversationId,
+            String idempotencyKey
+    ) {
+        String clientMessageId = normalizeIdempotencyKey(idempotencyKey);
+        if (clientMessageId == null) {
+            return Optional.empty();
+        }
+
+        User sender = resolveCurrentUser(username);
+        return messageRepository.findByClientMessageId(sender.getId(), clientMessageId)
+                .map(message -> ApiResponse.success("Message déjà envoyé",
+                        toIdempotentResponse(message, conversationId)));
+    }
+
+    private String normalizeIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+            throw new BadRequestException(
+                    "Clé d'idempotence trop longue (maximum " + IDEMPOTENCY_KEY_MAX_LENGTH + " caractères)");
+        }
+        return key;
+    }
+
+    private MessageResponse toIdempotentResponse(Message message, Long conversationId) {
+        if (!message.getConversation().getId().equals(conversationId)) {
+            throw new BadRequestException("Clé d'idempotence déjà utilisée pour une autre conversation");
+        }
+        return mapToMessageResponse(message);
+    }
+
     // =========================================================================
     // Récupérer les conversations d'un utilisateur
     // =========================================================================
+    @Transactional(readOnly = true)
     public Page<ConversationResponse> getConversations(String username, Pageable pageable) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User user = resolveCurrentUser(username);
 
-        return conversationRepository.findByParticipantId(user.getId(), pageable)
-                .map(conv -> mapToConversationResponse(conv, user.getId()));
+        Page<Long> page = conversationRepository.findIdsByParticipantId(user.getId(), pageable);
+
+        return new PageImpl<>(
+                mapToConversationResponses(findAllWithParticipants(page.getContent()), user.getId()),
+                page.getPageable(),
+                page.getTotalElements());
     }
 
     // =========================================================================
@@ -686,8 +872,7 @@ public class ChatService {
             Long conversationId,
             Pageable pageable
     ) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User user = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -700,6 +885,63 @@ public class ChatService {
                 .map(this::mapToMessageResponse);
     }
 
+    /**
+     * Historique par curseur : messages avant (plus anciens) ou après (plus
+     * récents) un message donné, sans OFFSET ni COUNT. Sans curseur, renvoie
+     * la page la plus récente. Les messages sont toujours renvoyés du plus
+     * récent au plus ancien ; hasNext indique s'il en reste dans le sens
+     * demandé.
+     */
+    @Transactional(readOnly = true)
+    public Slice<MessageResponse> getMessagesByCursor(
+            String username,
+            Long conversationId,
+            Long beforeMessageId,
+            Long afterMessageId,
+            Integer limit
+    ) {
+        if (beforeMessageId != null && afterMessageId != null) {
+            throw new BadRequestException("Utiliser before ou after, pas les deux");
+        }
+
+        User user = resolveCurrentUser(username);
+
+        if (!conversationRepository.isUserParticipant(conversationId, user.getId())) {
+            throw new ForbiddenException("Vous n'êtes pas participant de cette conversation");
+        }
+
+        int size = (limit == null || limit <= 0)
+                ? MESSAGES_DEFAULT_LIMIT
+                : Math.min(limit, MESSAGES_MAX_LIMIT);
+        Pageable pageable = PageRequest.of(0, size);
+
+        if (beforeMessageId != null) {
+            LocalDateTime cursor = findCursor(conversationId, beforeMessageId);
+            return messageRepository.findBefore(conversationId, cursor, beforeMessageId, pageable)
+                    .map(this::mapToMessageResponse);
+        }
+
+        if (afterMessageId != null) {
+            LocalDateTime cursor = findCursor(conversationId, afterMessageId);
+            Slice<Message> newer = messageRepository.findAfter(conversationId, cursor, afterMessageId, pageable);
+
+            // Lu dans l'ordre croissant pour partir du curseur ; renvoyé dans le même ordre que les autres modes
+            List<MessageResponse> content = newer.getContent().stream()
+                    .map(this::mapToMessageResponse)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            Collections.reverse(content);
+            return new SliceImpl<>(content, pageable, newer.hasNext());
+        }
+
+        return messageRepository.findLatest(conversationId, pageable)
+                .map(this::mapToMessageResponse);
+    }
+
+    private LocalDateTime findCursor(Long conversationId, Long messageId) {
+        return messageRepository.findCursorCreatedAt(conversationId, messageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Message non trouvé dans cette conversation"));
+    }
+
     // =========================================================================
     // Marquer les messages comme lus
     // =========================================================================
@@ -707,32 +949,84 @@ public class ChatService {
     public ApiResponse<Void> markAsRead(
             String username,
             Long conversationId,
-            List<Long> messageIds
+            List<Long> messageIds,
+            Long upToMessageId
     ) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        boolean byIds = messageIds != null && !messageIds.isEmpty();
+        if (byIds && upToMessageId != null) {
+            throw new BadRequestException("Utiliser messageIds ou upToMessageId, pas les deux");
+        }
+
+        User user = resolveCurrentUser(username);
 
         if (!conversationRepository.isUserParticipant(conversationId, user.getId())) {
             throw new ForbiddenException("Vous n'êtes pas participant de cette conversation");
         }
 
-        if (messageIds == null || messageIds.isEmpty()) {
-            messageRepository.markAllAsRead(conversationId, user.getId());
+        // Expéditeurs à prévenir, relus avant la mise à jour qui efface l'état non lu
+        List<String> senders;
+
+        if (byIds) {
+            Set<Long> ids = new HashSet<>(messageIds);
+            senders = messageRepository.findUnreadSenderUsernames(conversationId, user.getId(), ids);
+            messageRepository.markAsReadByIds(conversationId, user.getId(), ids);
+
+            // Compteur du lecteur : son filigrane n'avance que sur le préfixe
+            // continu des messages lus juste après lui. Un message non listé
+            // (pas encore affiché) reste compté comme non lu.
+            // Le drapeau isRead ne bascule qu'une fois, au premier lecteur du groupe
+            Long readUpTo = findContiguousReadPrefixEnd(conversationId, user.getId(), ids);
+            if (readUpTo != null) {
+                participantStateRepository.advanceReadWatermark(conversationId, user.getId(), readUpTo);
+            }
+        } else if (upToMessageId != null) {
+            // Un id étranger ou démesuré figerait le filigrane (il n'avance jamais en arrière)
+            findCursor(conversationId, upToMessageId);
+            senders = messageRepository.findUnreadSenderUsernamesUpTo(conversationId, user.getId(), upToMessageId);
+            messageRepository.markAsReadUpTo(conversationId, user.getId(), upToMessageId);
+            participantStateRepository.advanceReadWatermark(conversationId, user.getId(), upToMessageId);
         } else {
-            messageIds.forEach(messageId ->
-                    messageRepository.findById(messageId).ifPresent(message -> {
-                        if (!message.getSender().getId().equals(user.getId())) {
-                            message.setRead(true);
-                            message.setReadAt(LocalDateTime.now());
-                            messageRepository.save(message);
-                        }
-                    })
-            );
+            senders = messageRepository.findUnreadSenderUsernamesUpTo(conversationId, user.getId(), null);
+            messageRepository.markAllAsRead(conversationId, user.getId());
+            participantStateRepository.resetUnread(conversationId, user.getId());
+        }
+
+        recordChange(ChangeType.MESSAGES_READ, conversationId);
+
+        // Un seul accusé de lecture agrégé, pour les seuls expéditeurs concernés
+        if (!senders.isEmpty()) {
+            ChatNotification receipt = ChatNotification.builder()
+                    .type("MESSAGE_READ")
+                    .conversationId(conversationId)
+                    .userId(user.getId())
+                    .username(user.getUsername())
+                    .messageIds(byIds ? List.copyOf(messageIds) : null)
+                    .readUpToMessageId(upToMessageId)
+                    .timestamp(LocalDateTime.now())
+                    .build();
+            eventPublisher.publishEvent(new ChatFanoutEvent(conversationId, senders, false, receipt));
         }
 
         return ApiResponse.success("Messages marqués comme lus");
     }
 
+    // Dernier id du préfixe continu de messages lus au-delà du filigrane
+    // (null si le premier message non lu n'est pas dans la liste)
+    private Long findContiguousReadPrefixEnd(Long conversationId, Long userId, Set<Long> readIds) {
+        // Le préfixe ne peut pas dépasser le nombre d'ids reçus
+        List<Long> unread = messageRepository.findIdsAfterReadWatermark(
+                conversationId, userId, PageRequest.of(0, readIds.size()));
+
+        Long readUpTo = null;
+        for (Long id : unread) {
+            if (!readIds.contains(id)) {
+                break;
+            }
+            readUpTo = id;
+        }
+        return readUpTo;
+    }
+
     // =========================================================================
     // Notifier les participants du lancement d'un appel
     // =========================================================================
@@ -742,8 +1036,7 @@ public class ChatService {
             String callLink,
             String callType
     ) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User user = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -762,14 +1055,7 @@ public class ChatService {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        conversation.getParticipants().forEach(participant -> {
-            if (!participant.getId().equals(user.getId())) {
-                messagingTemplate.convertAndSendToUser(
-                        participant.getUsername(), "/queue/messages", notification);
-            }
-        });
-
-        messagingTemplate.convertAndSend("/topic/conversation/" + conversationId, notification);
+        publishToParticipants(conversation, user.getId(), notification, true);
 
         return ApiResponse.success("Notification envoyée");
     }
@@ -783,8 +1069,7 @@ public class ChatService {
             String email,
             String callLink
     ) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        User user = resolveCurrentUser(username);
 
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation non trouvée"));
@@ -806,25 +1091,283 @@ public class ChatService {
     // =========================================================================
     // Rechercher des conversations
     // =========================================================================
-    public List<ConversationResponse> searchConversations(String username, String searchTerm) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+    /**
+     * Conversations de l'utilisateur dont le nom correspond, de la plus
+     * récente à la plus ancienne. Pagination par curseur : before = id de la
+     * dernière conversation reçue.
+     */
+    @Transactional(readOnly = true)
+    public List<ConversationResponse> searchConversations(
+            String username,
+            String searchTerm,
+            Long beforeConversationId,
+            Integer limit
+    ) {
+        User user = resolveCurrentUser(username);
 
-        return conversationRepository.searchConversations(user.getId(), searchTerm)
-                .stream()
-                .map(conv -> mapToConversationResponse(conv, user.getId()))
+        int size = (limit == null || limit <= 0)
+                ? SEARCH_DEFAULT_LIMIT
+                : Math.min(limit, SEARCH_MAX_LIMIT);
+
+        // Termes trop courts pour l'index plein texte : recherche LIKE
+        FullTextQuery query = FullTextQuery.parse(searchTerm);
+        List<Long> ids = query.isEmpty()
+                ? conversationRepository.searchConversationIds(
+                        user.getId(), searchTerm, beforeConversationId, PageRequest.of(0, size))
+                : conversationRepository.searchConversationIdsFullText(
+                        user.getId(), query.toBooleanMode(), beforeConversationId, size);
+
+        return mapToConversationResponses(findAllWithParticipants(ids), user.getId());
+    }
+
+    // =========================================================================
+    // Rechercher dans les messages (plein texte, conversations de l'utilisateur)
+    // =========================================================================
+
+    /**
+     * Recherche plein texte dans les messages des conversations dont
+     * l'utilisateur est membre (filtre fait dans la requête, pas après),
+     * du plus récent au plus ancien. Pagination par curseur : before = id du
+     * dernier résultat reçu.
+     */
+    @Transactional(readOnly = true)
+    public MessageSearchResponse searchMessages(
+            String username,
+            String searchTerm,
+            Long conversationId,
+            Long beforeMessageId,
+            Integer limit
+    ) {
+        FullTextQuery query = FullTextQuery.parse(searchTerm);
+        if (query.isEmpty()) {
+            throw new BadRequestException(
+                    "La recherche doit contenir au moins un terme de " + FullTextQuery.MIN_TERM_LENGTH + " caractères");
+        }
+
+        User user = resolveCurrentUser(username);
+
+        int size = (limit == null || limit <= 0)
+                ? SEARCH_DEFAULT_LIMIT
+                : Math.min(limit, SEARCH_MAX_LIMIT);
+
+        // Un résultat de plus pour savoir s'il reste une page
+        List<Long> ids = messageRepository.searchIdsFullText(
+                user.getId(), query.toBooleanMode(), conversationId, beforeMessageId, size + 1);
+
+        boolean hasMore = ids.size() > size;
+        if (hasMore) {
+            ids = ids.subList(0, size);
+        }
+        if (ids.isEmpty()) {
+            return MessageSearchResponse.builder()
+                    .results(List.of())
+                    .hasMore(false)
+                    .build();
+        }
+
+        Map<Long, Message> messagesById = messageRepository.findAllWithSender(ids).stream()
+                .collect(Collectors.toMap(Message::getId, m -> m));
+
+        Set<Long> conversationIds = messagesById.values().stream()
+                .map(m -> m.getConversation().getId())
+                .collect(Collectors.toSet());
+        Map<Long, String> conversationNames = conversationRepository.findAllById(conversationIds).stream()
+                .filter(c -> c.getName() != null)
+                .collect(Collectors.toMap(Conversation::getId, Conversation::getName));
+
+        List<MessageSearchResponse.Hit> results = ids.stream()
+                .map(messagesById::get)
+                .filter(Objects::nonNull)
+                .map(message -> MessageSearchResponse.Hit.builder()
+                        .message(mapToMessageResponse(message))
+                        .conversationName(conversationNames.get(message.getConversation().getId()))
+                        .highlight(query.highlight(message.getContent()))
+                        .build())
+                .toList();
+
+        return MessageSearchResponse.builder()
+                .results(results)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? ids.get(ids.size() - 1) : null)
+                .build();
+    }
+
+    // =========================================================================
+    // Synchronisation incrémentale (remplace le polling du frontend)
+    // =========================================================================
+    @Transactional(readOnly = true)
+    public ChatSyncResponse sync(String username, Long since, Integer limit) {
+        User user = resolveCurrentUser(username);
+
+        long current = chatChangeRepository.findCurrentSequence();
+        long oldest  = chatChangeRepository.findOldestSequence();
+        Long firstUnsettledId = findFirstUnsettledId();
+
+        // Token absent, venant du futur (base réinitialisée) ou déjà purgé :
+        // le client doit tout recharger puis repartir du token courant
+        if (since == null || since <= 0 || since > current
+                || (oldest > 0 && since < oldest - 1)) {
+            return ChatSyncResponse.builder()
+                    .syncToken(settledSequence(current, firstUnsettledId))
+                    .fullResync(true)
+                    .conversations(List.of())
+                    .messages(List.of())
+                    .deletedMessageIds(List.of())
+                    .removedConversationIds(List.of())
+                    .build();
+        }
+
+        int pageSize = (limit == null || limit <= 0)
+                ? SYNC_DEFAULT_LIMIT
+                : Math.min(limit, SYNC_MAX_LIMIT);
+
+        List<ChatChange> changes = chatChangeRepository.findChangesSince(
+                user.getId(), since, PageRequest.of(0, pageSize));
+
+        Set<Long> changedConversationIds = new LinkedHashSet<>();
+        Set<Long> removedConversationIds = new LinkedHashSet<>();
+        Set<Long> upsertedMessageIds     = new LinkedHashSet<>();
+        Set<Long> deletedMessageIds      = new LinkedHashSet<>();
+
+        for (ChatChange change : changes) {
+            Long conversationId = change.getConversationId();
+            switch (change.getType()) {
+                case MESSAGE_CREATED, MESSAGE_EDITED -> {
+                    upsertedMessageIds.add(change.getMessageId());
+                    changedConversationIds.add(conversationId);
+                }
+                case MESSAGE_DELETED -> {
+                    upsertedMessageIds.remove(change.getMessageId());
+                    deletedMessageIds.add(change.getMessageId());
+                    changedConversationIds.add(conversationId);
+                }
+                case MESSAGES_READ, CONVERSATION_UPDATED -> {
+                    changedConversationIds.add(conversationId);
+                    removedConversationIds.remove(conversationId);
+                }
+                case CONVERSATION_REMOVED -> {
+                    changedConversationIds.remove(conversationId);
+                    removedConversationIds.add(conversationId);
+                }
+            }
+        }
+
+        // Les conversations dont l'utilisateur n'est plus membre ne sont pas renvoyées
+        List<Conversation> changedConversations = findAllWithParticipants(changedConversationIds).stream()
+                .filter(c -> c.getParticipants().stream()
+                        .anyMatch(p -> p.getId().equals(user.getId())))
                 .collect(Collectors.toList());
+        List<ConversationResponse> conversations =
+                mapToConversationResponses(changedConversations, user.getId());
+
+        List<MessageResponse> messages = messageRepository
+                .findAllById(upsertedMessageIds).stream()
+                .filter(m -> !removedConversationIds.contains(m.getConversation().getId()))
+                .sorted(Comparator.comparing(Message::getId))
+                .map(this::mapToMessageResponse)
+                .collect(Collectors.toList());
+
+        // Les changements récents sont renvoyés mais le token s'arrête juste
+        // avant eux : un id plus bas encore non commité sera lu au prochain
+        // appel, et ces changements seront renvoyés à nouveau (le client
+        // dédoublonne par id)
+        boolean hasMore = changes.size() == pageSize;
+        long syncToken  = since;
+        for (ChatChange change : changes) {
+            if (firstUnsettledId != null && change.getId() >= firstUnsettledId) {
+                break;
+            }
+            syncToken = change.getId();
+        }
+
+        return ChatSyncResponse.builder()
+                .syncToken(syncToken)
+                .hasMore(hasMore)
+                .fullResync(false)
+                .conversations(conversations)
+                .messages(messages)
+                .deletedMessageIds(new ArrayList<>(deletedMessageIds))
+                .removedConversationIds(new ArrayList<>(removedConversationIds))
+                .build();
     }
 
     // =========================================================================
-    // Méthode utilitaire : broadcast WebSocket à une conversation — NOUVEAU
+    // Présence (instantané, remplace le broadcast /topic/public)
+    // =========================================================================
+    public ApiResponse<Map<String, Boolean>> getPresence(Collection<String> usernames) {
+        Set<String> distinct = usernames.stream()
+                .filter(u -> u != null && !u.isBlank())
+                .map(String::trim)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (distinct.size() > PRESENCE_MAX_USERS) {
+            throw new BadRequestException(
+                    "Trop d'utilisateurs demandés (maximum " + PRESENCE_MAX_USERS + ")");
+        }
+
+        return ApiResponse.success("Présence des utilisateurs", presenceService.onlineStatus(distinct));
+    }
+
+    /**
+     * État complet des contacts de l'utilisateur, envoyé une fois à
+     * l'abonnement ; les changements suivent en PRESENCE_DIFF.
+     */
+    public PresenceResponse getContactPresenceSnapshot(String username) {
+        return PresenceResponse.builder()
+                .type("PRESENCE_SNAPSHOT")
+                .users(presenceService.onlineStatus(contactGraphService.getContacts(username)))
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    // =========================================================================
+    // Nombre total de messages non lus (badge)
+    // =========================================================================
+    @Transactional(readOnly = true)
+    public ApiResponse<Long> getUnreadCount(String username) {
+        User user = resolveCurrentUser(username);
+
+        return ApiResponse.success("Messages non lus",
+                participantStateRepository.sumUnreadCount(user.getId()));
+    }
+
+    // Valeur courante de la séquence : envoyée avec l'indice RESYNC
+    @Transactional(readOnly = true)
+    public long getCurrentSyncToken() {
+        return settledSequence(chatChangeRepository.findCurrentSequence(), findFirstUnsettledId());
+    }
+
+    // Premier id du journal encore dans la fenêtre de stabilisation (null si
+    // aucun), mesurée sur l'horloge de la base qui date les changements
+    private Long findFirstUnsettledId() {
+        LocalDateTime settledBefore = chatChangeRepository.findDatabaseNow().minusSeconds(syncSettleSeconds);
+        return chatChangeRepository.findFirstIdCreatedAfter(settledBefore);
+    }
+
+    // Dernier id du journal antérieur à la fenêtre de stabilisation
+    private static long settledSequence(long current, Long firstUnsettledId) {
+        return firstUnsettledId == null ? current : Math.min(current, firstUnsettledId - 1);
+    }
+
+    // Purge quotidienne du journal (les clients plus anciens font un fullResync)
+    @Scheduled(cron = "${app.chat.sync.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeSyncJournal() {
+        int purged = chatChangeRepository.deleteOlderThan(
+                LocalDateTime.now().minusDays(syncRetentionDays));
+        log.info("Journal de synchronisation du chat purgé : {} entrée(s)", purged);
+    }
+
+    // =========================================================================
+    // Méthode utilitaire : broadcast WebSocket à une conversation (après commit)
     // =========================================================================
 
     private void broadcastToConversation(
             Conversation conversation,
             User sender,
             String type,
-            MessageResponse messageResponse
+            MessageResponse messageResponse,
+            Long syncToken
     ) {
         ChatNotification notification = ChatNotification.builder()
                 .type(type)
@@ -833,24 +1376,149 @@ public class ChatService {
                 .userId(sender.getId())
                 .username(sender.getUsername())
                 .timestamp(LocalDateTime.now())
+                .syncToken(syncToken)
                 .build();
 
-        // 1) Queue personnelle de chaque participant (sauf l'expéditeur)
-        conversation.getParticipants().forEach(participant -> {
-            if (!participant.getId().equals(sender.getId())) {
-                messagingTemplate.convertAndSendToUser(
-                        participant.getUsername(),
-                        "/queue/messages",
-                        notification
-                );
-            }
-        });
+        // Queue personnelle de chaque participant (sauf l'expéditeur)
+        // + topic de la conversation (permet aux abonnés du topic de recevoir aussi)
+        publishToParticipants(conversation, sender.getId(), notification, true);
+    }
+
+    /**
+     * Diffuse la notification aux participants (sauf excludedUserId) après le
+     * commit, via ChatFanoutService. Les destinataires sont résolus ici, tant
+     * que la session JPA est ouverte.
+     */
+    private void publishToParticipants(Conversation conversation,
+                                       Long excludedUserId,
+                                       ChatNotification notification,
+                                       boolean toConversationTopic) {
+        List<String> recipients = conversation.getParticipants().stream()
+                .filter(p -> !p.getId().equals(excludedUserId))
+                .map(User::getUsername)
+                .collect(Collectors.toList());
+
+        eventPublisher.publishEvent(new ChatFanoutEvent(
+                conversation.getId(), recipients, toConversationTopic, notification));
+    }
+
+    // =========================================================================
+    // Utilisateur courant
+    // =========================================================================
+
+    /**
+     * Réutilise le principal déjà résolu par JwtAuthenticationFilter (ou par
+     * JwtChannelInterceptor côté WebSocket, via le cache) au lieu de relire
+     * l'utilisateur en base à chaque appel. L'instance est détachée : seuls
+     * ses champs simples (id, username, nom...) sont utilisés ici.
+     */
+    private User resolveCurrentUser(String username) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null
+                && authentication.getPrincipal() instanceof User principal
+                && principal.getUsername().equals(username)) {
+            return principal;
+        }
+
+        return userPrincipalCache.get(username)
+                .orElseGet(() -> userRepository.findByUsername(username)
+                        .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé")));
+    }
+
+    /**
+     * Supprime une conversation par requêtes groupées, dans l'ordre des clés
+     * étrangères (états, réponses, messages, participants, conversation),
+     * sans jamais charger ses messages : mémoire constante quelle que soit
+     * la taille de l'historique.
+     */
+    private void purgeConversation(Conversation conversation) {
+        Long conversationId = conversation.getId();
+
+        participantStateRepository.deleteByConversation(conversationId);
+        departureRepository.deleteByConversation(conversationId);
+        messageRepository.detachRepliesToConversation(conversationId);
+        int deletedMessages = messageRepository.deleteByConversationId(conversationId);
+        conversationRepository.deleteParticipants(conversationId);
+        conversationRepository.deleteConversationById(conversationId);
+
+        // Supprimée en base : ne plus la synchroniser au commit
+        entityManager.detach(conversation);
+
+        log.debug("Conversation {} purgée ({} message(s))", conversationId, deletedMessages);
+    }
+
+    // Les membres ont changé : graphe des contacts (présence) et cache
+    // d'appartenance (indicateur de frappe) sont à recalculer
+    private void invalidateContacts(Conversation conversation, User... formerMembers) {
+        membershipCache.invalidate(conversation.getId());
+
+        List<String> usernames = new ArrayList<>();
+        conversation.getParticipants().forEach(p -> usernames.add(p.getUsername()));
+        for (User former : formerMembers) {
+            usernames.add(former.getUsername());
+        }
+        contactGraphService.invalidate(usernames);
+    }
+
+    // =========================================================================
+    // États par participant (non lus, dernier message)
+    // =========================================================================
+
+    private void initParticipantStates(Conversation conversation, Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        // Un nouveau membre part de l'historique existant, considéré comme lu :
+        // son filigrane est cohérent avec un compteur à zéro
+        Message last = conversation.getId() != null
+                ? messageRepository.findLastMessage(conversation.getId())
+                : null;
+
+        List<ConversationParticipantState> states = participantStateRepository.saveAll(users.stream()
+                .map(u -> ConversationParticipantState.builder()
+                        .conversation(conversation)
+                        .user(u)
+                        .lastReadMessageId(last != null ? last.getId() : null)
+                        .lastMessageId(last != null ? last.getId() : null)
+                        .lastMessageAt(last != null ? last.getCreatedAt() : null)
+                        .build())
+                .collect(Collectors.toList()));
+
+        // Les états sont ensuite modifiés par des UPDATE groupés : on les détache
+        // pour que la réponse relise les valeurs en base plutôt que ces instances
+        states.forEach(entityManager::detach);
+    }
+
+    // Nouveau message (utilisateur ou système) : états des participants + journal
+    private long registerNewMessage(Message message) {
+        Long conversationId = message.getConversation().getId();
+        Long senderId       = message.getSender().getId();
+
+        participantStateRepository.registerIncomingMessage(
+                conversationId, senderId, message.getId(), message.getCreatedAt());
+        participantStateRepository.registerOwnMessage(
+                conversationId, senderId, message.getId(), message.getCreatedAt());
 
-        // 2) Topic de la conversation (permet aux abonnés du topic de recevoir aussi)
-        messagingTemplate.convertAndSend(
-                "/topic/conversation/" + conversation.getId(),
-                notification
-        );
+        return recordChange(ChangeType.MESSAGE_CREATED, conversationId, message.getId(), null);
+    }
+
+    // =========================================================================
+    // Journal de synchronisation
+    // =========================================================================
+
+    private long recordChange(ChangeType type, Long conversationId) {
+        return recordChange(type, conversationId, null, null);
+    }
+
+    private long recordChange(ChangeType type, Long conversationId, Long messageId, Long userId) {
+        ChatChange change = ChatChange.builder()
+                .type(type)
+                .conversationId(conversationId)
+                .messageId(messageId)
+                .userId(userId)
+                .build();
+        return chatChangeRepository.save(change).getId();
     }
 
     // =========================================================================
@@ -859,12 +1527,87 @@ public class ChatService {
 
     private ConversationResponse mapToConversationResponse(Conversation conversation,
                                                            Long currentUserId) {
-        Message lastMessage  = messageRepository.findLastMessage(conversation.getId());
-        long    unreadCount  = messageRepository.countUnreadMessages(
-                conversation.getId(), currentUserId);
+        return mapToConversationResponses(List.of(conversation), currentUserId).get(0);
+    }
+
+    // Conversations et participants en une requête, dans l'ordre des ids donnés
+    private List<Conversation> findAllWithParticipants(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Conversation> byId = conversationRepository.findAllWithParticipants(ids).stream()
+                .collect(Collectors.toMap(Conversation::getId, c -> c));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Version groupée pour les listes : quel que soit le nombre de conversations,
+     * une requête pour les états (non lus + pointeur du dernier message) et une
+     * pour les derniers messages, au lieu de requêtes par conversation. Les
+     * participants doivent déjà être chargés (findAllWithParticipants).
+     */
+    private List<ConversationResponse> mapToConversationResponses(List<Conversation> conversations,
+                                                                  Long currentUserId) {
+        if (conversations.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = conversations.stream()
+                .map(Conversation::getId)
+                .collect(Collectors.toList());
+
+        // Présence de tous les participants en une seule lecture du store
+        Set<String> onlineUsers = presenceService.isOnline(conversations.stream()
+                .flatMap(c -> c.getParticipants().stream())
+                .map(User::getUsername)
+                .collect(Collectors.toSet()));
+
+        Map<Long, ConversationParticipantState> states = participantStateRepository
+                .findByUserAndConversations(currentUserId, ids).stream()
+                .collect(Collectors.toMap(st -> st.getConversation().getId(), st -> st));
+
+        List<Long> lastMessageIds = states.values().stream()
+                .map(ConversationParticipantState::getLastMessageId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        Map<Long, Message> lastMessages = new HashMap<>();
+        if (!lastMessageIds.isEmpty()) {
+            messageRepository.findAllWithSender(lastMessageIds)
+                    .forEach(m -> lastMessages.put(m.getConversation().getId(), m));
+        }
+
+        // États absents (créés par la migration V8 et à chaque ajout de membre) :
+        // lecture seule, dernier message relu et aucun non lu
+        List<Long> missing = ids.stream()
+                .filter(id -> !states.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            messageRepository.findLastMessages(missing)
+                    .forEach(m -> lastMessages.put(m.getConversation().getId(), m));
+        }
 
+        return conversations.stream()
+                .map(c -> {
+                    ConversationParticipantState state = states.get(c.getId());
+                    return mapToConversationResponse(c, currentUserId,
+                            lastMessages.get(c.getId()),
+                            state != null ? state.getUnreadCount() : 0L,
+                            onlineUsers);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private ConversationResponse mapToConversationResponse(Conversation conversation,
+                                                           Long currentUserId,
+                                                           Message lastMessage,
+                                                           long unreadCount,
+                                                           Set<String> onlineUsers) {
         List<ParticipantResponse> participants = conversation.getParticipants().stream()
-                .map(this::mapToParticipantResponse)
+                .map(p -> mapToParticipantResponse(p, onlineUsers))
                 .collect(Collectors.toList());
 
         String conversationName = conversation.getName();
@@ -880,7 +1623,7 @@ public class ChatService {
             if (otherUser != null) {
                 conversationName = getUserDisplayName(otherUser);
                 avatar = getInitials(conversationName);
-                isOnline = presenceService.isOnline(otherUser.getUsername());
+                isOnline = onlineUsers.contains(otherUser.getUsername());
             }
         }
 
@@ -926,7 +1669,7 @@ public class ChatService {
         return builder.build();
     }
 
-    private ParticipantResponse mapToParticipantResponse(User user) {
+    private ParticipantResponse mapToParticipantResponse(User user, Set<String> onlineUsers) {
         String name   = getUserDisplayName(user);
         String avatar = getInitials(name);
 
@@ -942,7 +1685,7 @@ public class ChatService {
                 .email(user.getEmail())
                 .name(name)
                 .avatar(avatar)
-                .isOnline(presenceService.isOnline(user.getUsername()))
+                .isOnline(onlineUsers.contains(user.getUsername()))
                 .role(role)
                 .build();
     }
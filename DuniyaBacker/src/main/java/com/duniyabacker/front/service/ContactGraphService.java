@@ -0,0 +1,81 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.repository.ConversationRepository;
+import com.duniyabacker.front.repository.ProjetB2BRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Graphe des contacts (en cache) : utilisateurs partageant au moins une
+ * conversation ou un projet B2B. Sert à limiter la diffusion de la présence
+ * aux seules personnes concernées.
+ *
+ * Les entrées expirent après app.presence.contacts.ttl-seconds et sont
+ * invalidées explicitement quand les membres d'une conversation ou d'un
+ * projet changent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContactGraphService {
+
+    private final ConversationRepository conversationRepository;
+    private final ProjetB2BRepository projetB2BRepository;
+
+    @Value("${app.presence.contacts.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.presence.contacts.max-size:10000}")
+    private int maxSize;
+
+    private TtlCache<String, Set<String>> contactsByUsername;
+
+    @PostConstruct
+    void initCache() {
+        contactsByUsername = new TtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * @return les noms d'utilisateur des contacts (jamais l'utilisateur lui-même)
+     */
+    @Transactional(readOnly = true)
+    public Set<String> getContacts(String username) {
+        Set<String> cached = contactsByUsername.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        Set<String> contacts = new HashSet<>(conversationRepository.findContactUsernames(username));
+        contacts.addAll(projetB2BRepository.findProjectParticipantUsernames(username));
+        contacts.addAll(projetB2BRepository.findProjectCreatorUsernames(username));
+        contacts.remove(username);
+        Set<String> result = Set.copyOf(contacts);
+
+        contactsByUsername.put(username, result);
+        return result;
+    }
+
+    /**
+     * À appeler quand les membres d'une conversation ou d'un projet changent,
+     * avec tous les membres concernés (anciens et nouveaux). Rejoué après la
+     * fin de la transaction en cours pour ne pas garder un graphe relu avant
+     * le commit.
+     */
+    public void invalidate(Collection<String> usernames) {
+        contactsByUsername.invalidateAll(usernames);
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.contacts.cleanup-ms:300000}")
+    public void purgeExpired() {
+        contactsByUsername.purgeExpired();
+    }
+}
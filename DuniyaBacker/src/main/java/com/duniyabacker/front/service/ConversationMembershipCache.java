@@ -0,0 +1,72 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.repository.ConversationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * Membres de chaque conversation (en cache), pour les contrôles
+ * d'appartenance des messages STOMP fréquents (indicateur de frappe) qui
+ * ne doivent pas coûter une requête par frame.
+ *
+ * Invalidé par ChatService à chaque changement de membres ; le TTL borne
+ * le retard en cas d'invalidation manquée.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationMembershipCache {
+
+    private final ConversationRepository conversationRepository;
+
+    @Value("${app.chat.membership.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.chat.membership.max-size:10000}")
+    private int maxSize;
+
+    private TtlCache<Long, Set<String>> membersByConversation;
+
+    @PostConstruct
+    void initCache() {
+        membersByConversation = new TtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    public boolean isParticipant(Long conversationId, String username) {
+        if (conversationId == null || username == null) {
+            return false;
+        }
+        return getMembers(conversationId).contains(username);
+    }
+
+    private Set<String> getMembers(Long conversationId) {
+        Set<String> cached = membersByConversation.get(conversationId);
+        if (cached != null) {
+            return cached;
+        }
+
+        Set<String> members = Set.copyOf(conversationRepository.findParticipantUsernames(conversationId));
+        membersByConversation.put(conversationId, members);
+        return members;
+    }
+
+    /**
+     * À appeler quand les membres d'une conversation changent ou qu'elle est
+     * supprimée. Rejoué après la fin de la transaction en cours pour ne pas
+     * garder une liste relue avant le commit.
+     */
+    public void invalidate(Long conversationId) {
+        membersByConversation.invalidate(conversationId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.membership.cleanup-ms:300000}")
+    public void purgeExpired() {
+        membersByConversation.purgeExpired();
+    }
+}
@@ -1,21 +1,38 @@
 package com.duniyabacker.front.service;
 
+import com.duniyabacker.front.entity.User;
 import com.duniyabacker.front.repository.UserRepository;
+import com.duniyabacker.front.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsernameOrEmail(username, username)
+        Optional<User> cached = userPrincipalCache.get(username);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        User user = userRepository.findByUsernameOrEmail(username, username)
                 .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + username));
+
+        // Dans une transaction l'entité reste gérée (et modifiable) : on ne la partage pas
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            userPrincipalCache.put(username, user);
+        }
+        return user;
     }
-}
\ No newline at end of file
+}
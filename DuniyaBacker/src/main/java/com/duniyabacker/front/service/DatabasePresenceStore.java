@@ -0,0 +1,184 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.entity.chat.PresenceSession;
+import com.duniyabacker.front.repository.PresenceSessionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Sessions partagées entre nœuds via la table presence_sessions.
+ *
+ * Chaque nœud possède un identifiant (app.presence.node-id, aléatoire par
+ * défaut) et renouvelle le bail de ses sessions à chaque heartbeat. Une
+ * session dont le bail expire appartient à un nœud tombé : le reaper de
+ * n'importe quel nœud la supprime et signale le passage hors ligne.
+ *
+ * Les transitions en ligne / hors ligne sont décidées sous un verrou par
+ * utilisateur (lockUser), en READ COMMITTED : le comptage qui suit voit les
+ * sessions validées par les autres nœuds. Deux déconnexions simultanées ne
+ * peuvent plus chacune voir la session de l'autre (aucun hors ligne), ni
+ * deux connexions se croire chacune la première.
+ */
+@Component
+@ConditionalOnProperty(name = "app.presence.store", havingValue = "database")
+@Slf4j
+public class DatabasePresenceStore implements PresenceStore {
+
+    private final PresenceSessionRepository presenceSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final long leaseSeconds;
+
+    public DatabasePresenceStore(
+            PresenceSessionRepository presenceSessionRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.presence.node-id:}") String nodeId,
+            @Value("${app.presence.lease-seconds:45}") long leaseSeconds
+    ) {
+        this.presenceSessionRepository = presenceSessionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    // Avec un node-id fixe, les sessions d'une exécution précédente sont mortes
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void clearPreviousSessions() {
+        int removed = presenceSessionRepository.deleteByNodeId(nodeId);
+        log.info("Store de présence partagé actif (nœud={}, {} session(s) orpheline(s) supprimée(s))",
+                nodeId, removed);
+    }
+
+    // Arrêt propre : inutile d'attendre l'expiration des baux
+    @PreDestroy
+    public void releaseSessions() {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    presenceSessionRepository.deleteByNodeId(nodeId));
+        } catch (Exception e) {
+            log.warn("Impossible de libérer les sessions du nœud {} : {}", nodeId, e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public boolean addSession(String username, String sessionId) {
+        presenceSessionRepository.lockUser(username);
+
+        presenceSessionRepository.save(PresenceSession.builder()
+                .sessionId(sessionId)
+                .username(username)
+                .nodeId(nodeId)
+                .leaseExpiresAt(LocalDateTime.now().plusSeconds(leaseSeconds))
+                .build());
+
+        return presenceSessionRepository.countActiveSessions(username, LocalDateTime.now()) == 1;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Optional<String> removeSession(String sessionId) {
+        Optional<String> username = presenceSessionRepository.findUsernameBySessionId(sessionId);
+        if (username.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Verrou avant le DELETE : une purge concurrente de la même session
+        // attend, puis ne supprime plus rien et ne signale rien
+        presenceSessionRepository.lockUser(username.get());
+        if (presenceSessionRepository.deleteBySessionId(sessionId) == 0) {
+            return Optional.empty();
+        }
+
+        return presenceSessionRepository.countActiveSessions(username.get(), LocalDateTime.now()) == 0
+                ? username
+                : Optional.empty();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isOnline(String username) {
+        return presenceSessionRepository.countActiveSessions(username, LocalDateTime.now()) > 0;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findOnline(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(presenceSessionRepository.findOnlineUsernames(usernames, LocalDateTime.now()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findLocalSessionIds() {
+        return new HashSet<>(presenceSessionRepository.findSessionIdsByNodeId(nodeId));
+    }
+
+    @Override
+    @Transactional
+    public void renewLeases() {
+        presenceSessionRepository.renewLeases(nodeId, LocalDateTime.now().plusSeconds(leaseSeconds));
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Set<String> reapExpiredSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PresenceSession> expired = presenceSessionRepository.findExpired(now);
+        if (expired.isEmpty()) {
+            return Set.of();
+        }
+
+        // Verrous pris dans l'ordre des noms : pas d'interblocage entre nœuds
+        Map<String, List<String>> sessionsByUser = new TreeMap<>();
+        for (PresenceSession session : expired) {
+            sessionsByUser.computeIfAbsent(session.getUsername(), u -> new ArrayList<>())
+                    .add(session.getSessionId());
+        }
+
+        // Plusieurs nœuds peuvent purger en même temps : seul celui dont le
+        // DELETE aboutit signale le passage hors ligne
+        Set<String> wentOffline = new HashSet<>();
+        for (Map.Entry<String, List<String>> entry : sessionsByUser.entrySet()) {
+            String username = entry.getKey();
+            presenceSessionRepository.lockUser(username);
+
+            int deleted = 0;
+            for (String sessionId : entry.getValue()) {
+                deleted += presenceSessionRepository.deleteBySessionId(sessionId);
+            }
+
+            // Toujours en ligne via une session d'un autre nœud : pas de changement
+            if (deleted > 0 && presenceSessionRepository.countActiveSessions(username, now) == 0) {
+                wentOffline.add(username);
+            }
+        }
+
+        log.info("Présence : {} session(s) expirée(s) purgée(s), {} utilisateur(s) hors ligne",
+                expired.size(), wentOffline.size());
+        return wentOffline;
+    }
+}
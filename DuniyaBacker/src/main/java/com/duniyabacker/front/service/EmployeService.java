@@ -12,6 +12,7 @@ import com.duniyabacker.front.exception.CustomExceptions.*;
 import com.duniyabacker.front.repository.EmployeRepository;
 import com.duniyabacker.front.repository.EntrepriseRepository;
 import com.duniyabacker.front.repository.UserRepository;
+import com.duniyabacker.front.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -34,6 +35,7 @@ public class EmployeService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final UserPrincipalCache userPrincipalCache;
 
     // =========================================================================
     // HELPER : résoudre l'entreprise depuis un username
@@ -171,6 +173,7 @@ public class EmployeService {
         employe.setInvitationToken(null);
 
         employeRepository.save(employe);
+        userPrincipalCache.evict(employe.getId());
 
         log.info("Invitation acceptée par: {} {}", employe.getPrenom(), employe.getNom());
 
@@ -265,6 +268,7 @@ public class EmployeService {
         }
 
         employeRepository.save(employe);
+        userPrincipalCache.evict(employe.getId());
 
         log.info("Employé mis à jour: {} {}", employe.getPrenom(), employe.getNom());
 
@@ -288,6 +292,7 @@ public class EmployeService {
         }
 
         employeRepository.delete(employe);
+        userPrincipalCache.evict(employe.getId());
 
         log.info("Employé supprimé: {} {}", employe.getPrenom(), employe.getNom());
 
@@ -0,0 +1,14 @@
+package com.duniyabacker.front.service;
+
+/**
+ * Corps JSON d'un message STOMP, sérialisé une seule fois et partagé (sans
+ * copie) par tous les envois d'un même événement. StompBroadcaster en fait
+ * directement le corps des messages (content-type application/json), sans
+ * nouvelle conversion Jackson.
+ */
+public record EncodedPayload(byte[] json) {
+
+    public int size() {
+        return json.length;
+    }
+}
@@ -10,6 +10,7 @@ import com.duniyabacker.front.entity.auth.Particulier;
 import com.duniyabacker.front.exception.CustomExceptions.*;
 import com.duniyabacker.front.repository.EntrepriseRepository;
 import com.duniyabacker.front.repository.UserRepository;
+import com.duniyabacker.front.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -24,6 +25,7 @@ public class EntrepriseService {
     private final EntrepriseRepository entrepriseRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
 
     /**
      * Mettre à jour le profil de l'entreprise
@@ -62,6 +64,7 @@ public class EntrepriseService {
         }
 
         entrepriseRepository.save(entreprise);
+        userPrincipalCache.evict(entreprise.getId());
         log.info("Profil entreprise mis à jour : {}", username);
 
         return ApiResponse.success("Profil mis à jour avec succès", mapToUserResponse(entreprise));
@@ -87,6 +90,7 @@ public class EntrepriseService {
 
         entreprise.setPassword(passwordEncoder.encode(request.getNewPassword()));
         entrepriseRepository.save(entreprise);
+        userPrincipalCache.evict(entreprise.getId());
 
         log.info("Mot de passe modifié pour : {}", username);
 
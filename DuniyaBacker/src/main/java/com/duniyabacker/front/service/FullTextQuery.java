@@ -0,0 +1,149 @@
+package com.duniyabacker.front.service;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Saisie utilisateur convertie pour MATCH ... AGAINST (... IN BOOLEAN MODE) :
+ * opérateurs MySQL neutralisés, chaque terme obligatoire et en préfixe
+ * ("+term*"). Les termes plus courts que innodb_ft_min_token_size (3 par
+ * défaut) ne sont pas indexés et sont ignorés.
+ *
+ * InnoDB n'a ni analyseur linguistique ni racinisation : les accents des
+ * termes sont retirés (les colonnes indexées sont en utf8mb4_0900_ai_ci,
+ * MySQL 8 requis, cf. V5 et V11) et le pluriel simple aussi, le préfixe
+ * couvrant alors singulier et pluriel ("maisons" cherche "maison*").
+ *
+ * Fournit aussi le surlignage des termes dans un extrait du texte trouvé.
+ */
+public final class FullTextQuery {
+
+    static final int MIN_TERM_LENGTH = 3;
+    private static final int MAX_TERMS = 10;
+    // En dessous, le s/x final fait partie du mot ("prix", "bus")
+    private static final int MIN_STEM_LENGTH = 5;
+
+    private static final int SNIPPET_LENGTH = 200;
+    private static final int SNIPPET_LEAD = 60;
+
+    // Opérateurs du mode booléen et ponctuation : séparateurs de termes
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s+\\-<>()~*\"@.,;:!?'’]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    private final List<String> terms;
+    private final Pattern highlightPattern;
+
+    private FullTextQuery(List<String> terms) {
+        this.terms = terms;
+        this.highlightPattern = terms.isEmpty() ? null : Pattern.compile(
+                terms.stream().map(Pattern::quote).collect(Collectors.joining("|")),
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    public static FullTextQuery parse(String input) {
+        if (input == null) {
+            return new FullTextQuery(List.of());
+        }
+        List<String> terms = Arrays.stream(SEPARATORS.split(input.trim()))
+                .filter(term -> term.length() >= MIN_TERM_LENGTH)
+                .map(FullTextQuery::normalize)
+                .distinct()
+                .limit(MAX_TERMS)
+                .toList();
+        return new FullTextQuery(terms);
+    }
+
+    // Sans accents, en minuscules, pluriel simple retiré
+    static String normalize(String term) {
+        String folded = fold(term).toLowerCase(Locale.ROOT);
+        if (folded.length() >= MIN_STEM_LENGTH
+                && (folded.endsWith("s") || folded.endsWith("x"))
+                && !folded.endsWith("ss")) {
+            return folded.substring(0, folded.length() - 1);
+        }
+        return folded;
+    }
+
+    // Accents retirés caractère par caractère : le texte plié garde la
+    // longueur de l'original, ses positions servent au surlignage
+    static String fold(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out.append(c);
+                continue;
+            }
+            String base = COMBINING_MARKS
+                    .matcher(Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD))
+                    .replaceAll("");
+            out.append(base.length() == 1 ? base.charAt(0) : c);
+        }
+        return out.toString();
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    public String toBooleanMode() {
+        return terms.stream()
+                .map(term -> "+" + term + "*")
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Extrait échappé en HTML, centré sur la première occurrence, avec les
+     * termes entourés de &lt;mark&gt;.
+     */
+    public String highlight(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        // Recherche dans le texte sans accents, découpe dans l'original
+        String folded = fold(text);
+
+        int firstMatch = 0;
+        if (highlightPattern != null) {
+            Matcher first = highlightPattern.matcher(folded);
+            if (first.find()) {
+                firstMatch = first.start();
+            }
+        }
+
+        int start = Math.max(0, firstMatch - SNIPPET_LEAD);
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        String snippet = text.substring(start, end);
+
+        StringBuilder out = new StringBuilder();
+        if (start > 0) {
+            out.append('…');
+        }
+
+        int cursor = 0;
+        if (highlightPattern != null) {
+            Matcher matcher = highlightPattern.matcher(folded.substring(start, end));
+            while (matcher.find()) {
+                out.append(HtmlUtils.htmlEscape(snippet.substring(cursor, matcher.start())))
+                        .append("<mark>")
+                        .append(HtmlUtils.htmlEscape(snippet.substring(matcher.start(), matcher.end())))
+                        .append("</mark>");
+                cursor = matcher.end();
+            }
+        }
+        out.append(HtmlUtils.htmlEscape(snippet.substring(cursor)));
+
+        if (end < text.length()) {
+            out.append('…');
+        }
+        return out.toString();
+    }
+}
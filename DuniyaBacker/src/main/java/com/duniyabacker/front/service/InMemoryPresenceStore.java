@@ -0,0 +1,85 @@
+package com.duniyabacker.front.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Sessions gardées en mémoire : valable uniquement avec un seul nœud backend.
+ * Pas de bail : les sessions disparaissent avec la JVM.
+ */
+@Component
+@ConditionalOnProperty(name = "app.presence.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryPresenceStore implements PresenceStore {
+
+    private final Map<String, Set<String>> sessionsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, String> usernameBySessionId = new ConcurrentHashMap<>();
+
+    // Transitions décidées dans compute : atomiques pour un même utilisateur
+    @Override
+    public boolean addSession(String username, String sessionId) {
+        usernameBySessionId.put(sessionId, username);
+
+        AtomicBoolean wentOnline = new AtomicBoolean();
+        sessionsByUsername.compute(username, (k, sessions) -> {
+            Set<String> current = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            wentOnline.set(current.isEmpty());
+            current.add(sessionId);
+            return current;
+        });
+        return wentOnline.get();
+    }
+
+    @Override
+    public Optional<String> removeSession(String sessionId) {
+        String username = usernameBySessionId.remove(sessionId);
+        if (username == null) {
+            return Optional.empty();
+        }
+
+        AtomicBoolean wentOffline = new AtomicBoolean();
+        sessionsByUsername.computeIfPresent(username, (k, sessions) -> {
+            if (sessions.remove(sessionId) && sessions.isEmpty()) {
+                wentOffline.set(true);
+                return null;
+            }
+            return sessions;
+        });
+        return wentOffline.get() ? Optional.of(username) : Optional.empty();
+    }
+
+    @Override
+    public boolean isOnline(String username) {
+        Set<String> sessions = sessionsByUsername.get(username);
+        return sessions != null && !sessions.isEmpty();
+    }
+
+    @Override
+    public Set<String> findOnline(Collection<String> usernames) {
+        return usernames.stream()
+                .filter(this::isOnline)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<String> findLocalSessionIds() {
+        return Set.copyOf(usernameBySessionId.keySet());
+    }
+
+    @Override
+    public void renewLeases() {
+        // Rien à renouveler : pas d'autre nœud susceptible de purger nos sessions
+    }
+
+    @Override
+    public Set<String> reapExpiredSessions() {
+        return Set.of();
+    }
+}
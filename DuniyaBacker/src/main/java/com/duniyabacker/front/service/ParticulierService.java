@@ -13,6 +13,7 @@ import com.duniyabacker.front.repository.ParticulierRepository;
 import com.duniyabacker.front.repository.UserRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import com.duniyabacker.front.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,6 +28,7 @@ public class ParticulierService {
     private final ParticulierRepository particulierRepository;
     private final UserRepository        userRepository;
     private final PasswordEncoder       passwordEncoder;
+    private final UserPrincipalCache    userPrincipalCache;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -63,6 +65,7 @@ public class ParticulierService {
         particulier.setNewsletter(request.isNewsletter());
 
         particulierRepository.save(particulier);
+        userPrincipalCache.evict(particulier.getId());
         log.info("Profil particulier mis à jour : {}", username);
 
         return ApiResponse.success("Profil mis à jour avec succès", mapToUserResponse(particulier));
@@ -86,6 +89,7 @@ public class ParticulierService {
 
         particulier.setPassword(passwordEncoder.encode(request.getNewPassword()));
         particulierRepository.save(particulier);
+        userPrincipalCache.evict(particulier.getId());
 
         log.info("Mot de passe modifié pour : {}", username);
 
@@ -138,6 +142,9 @@ public class ParticulierService {
 
         entityManager.clear();
 
+        // Le principal en cache est encore un Particulier avec le rôle PARTICULIER
+        userPrincipalCache.evict(id);
+
         log.info("Compte {} converti de PARTICULIER vers ENTREPRISE", username);
 
         return ApiResponse.success("Compte converti en compte entreprise avec succès. Merci de vous reconnecter.");
@@ -1,34 +1,36 @@
 package com.duniyabacker.front.service;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Suivi en mémoire des utilisateurs actuellement connectés en WebSocket.
+ * Suivi des utilisateurs actuellement connectés en WebSocket.
  * Un même utilisateur peut avoir plusieurs sessions ouvertes (plusieurs
- * onglets/appareils) : il n'est considéré hors ligne que lorsque sa
- * dernière session se ferme.
+ * onglets/appareils, éventuellement sur plusieurs nœuds) : il n'est
+ * considéré hors ligne que lorsque sa dernière session se ferme.
+ *
+ * Le stockage des sessions est délégué à un PresenceStore (mémoire locale
+ * ou table partagée, cf. app.presence.store).
  */
 @Service
+@RequiredArgsConstructor
 public class PresenceService {
 
-    private final Map<String, Set<String>> sessionsByUsername = new ConcurrentHashMap<>();
-    private final Map<String, String> usernameBySessionId = new ConcurrentHashMap<>();
+    private final PresenceStore presenceStore;
 
     /**
      * Enregistre une nouvelle session pour l'utilisateur.
      * @return true si l'utilisateur vient de passer de hors ligne à en ligne
      */
     public boolean userConnected(String username, String sessionId) {
-        usernameBySessionId.put(sessionId, username);
-        Set<String> sessions = sessionsByUsername.computeIfAbsent(username, k -> ConcurrentHashMap.newKeySet());
-        boolean wasOffline = sessions.isEmpty();
-        sessions.add(sessionId);
-        return wasOffline;
+        return presenceStore.addSession(username, sessionId);
     }
 
     /**
@@ -36,30 +38,58 @@ public class PresenceService {
      * @return le nom d'utilisateur si c'était sa dernière session (donc passé hors ligne), vide sinon
      */
     public Optional<String> userDisconnected(String sessionId) {
-        String username = usernameBySessionId.remove(sessionId);
+        return presenceStore.removeSession(sessionId);
+    }
+
+    public boolean isOnline(String username) {
         if (username == null) {
-            return Optional.empty();
+            return false;
         }
+        return presenceStore.isOnline(username);
+    }
 
-        Set<String> sessions = sessionsByUsername.get(username);
-        if (sessions == null) {
-            return Optional.empty();
+    /**
+     * Présence en lot : une seule lecture du store pour tout un ensemble.
+     * @return les utilisateurs en ligne parmi ceux donnés
+     */
+    public Set<String> isOnline(Collection<String> usernames) {
+        if (usernames == null || usernames.isEmpty()) {
+            return Set.of();
         }
+        return presenceStore.findOnline(usernames);
+    }
 
-        sessions.remove(sessionId);
-        if (sessions.isEmpty()) {
-            sessionsByUsername.remove(username);
-            return Optional.of(username);
+    /**
+     * État en ligne de chaque utilisateur demandé (ordre conservé).
+     */
+    public Map<String, Boolean> onlineStatus(Collection<String> usernames) {
+        Set<String> online = isOnline(usernames);
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        if (usernames != null) {
+            usernames.forEach(username -> status.put(username, online.contains(username)));
         }
+        return status;
+    }
 
-        return Optional.empty();
+    /**
+     * Sessions enregistrées par ce nœud, à rapprocher des sessions STOMP
+     * réellement ouvertes (SimpUserRegistry).
+     */
+    public Set<String> localSessionIds() {
+        return presenceStore.findLocalSessionIds();
     }
 
-    public boolean isOnline(String username) {
-        if (username == null) {
-            return false;
-        }
-        Set<String> sessions = sessionsByUsername.get(username);
-        return sessions != null && !sessions.isEmpty();
+    /**
+     * Sessions dont le nœud a cessé de renouveler le bail.
+     * @return les utilisateurs passés hors ligne
+     */
+    public Set<String> reapExpiredSessions() {
+        return presenceStore.reapExpiredSessions();
+    }
+
+    // Heartbeat du nœud : prolonge le bail de ses sessions dans le store partagé
+    @Scheduled(fixedDelayString = "${app.presence.heartbeat-ms:15000}")
+    public void renewLeases() {
+        presenceStore.renewLeases();
     }
 }
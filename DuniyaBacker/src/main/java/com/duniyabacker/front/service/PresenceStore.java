@@ -0,0 +1,51 @@
+package com.duniyabacker.front.service;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stockage des sessions WebSocket ouvertes, utilisé par PresenceService.
+ *
+ * - InMemoryPresenceStore : un seul nœud (par défaut)
+ * - DatabasePresenceStore : partagé entre nœuds, avec bail par session
+ *
+ * Sélection via app.presence.store (memory | database).
+ */
+public interface PresenceStore {
+
+    /**
+     * Enregistre une session ouverte sur ce nœud.
+     * @return true si l'utilisateur n'avait aucune autre session (tous nœuds confondus)
+     */
+    boolean addSession(String username, String sessionId);
+
+    /**
+     * Retire une session fermée.
+     * @return le nom d'utilisateur si c'était sa dernière session, vide sinon
+     */
+    Optional<String> removeSession(String sessionId);
+
+    boolean isOnline(String username);
+
+    /**
+     * @return le sous-ensemble des utilisateurs donnés ayant au moins une session
+     */
+    Set<String> findOnline(Collection<String> usernames);
+
+    /**
+     * @return les identifiants des sessions enregistrées par ce nœud
+     */
+    Set<String> findLocalSessionIds();
+
+    /**
+     * Prolonge le bail des sessions ouvertes sur ce nœud.
+     */
+    void renewLeases();
+
+    /**
+     * Supprime les sessions dont le bail a expiré (nœud tombé).
+     * @return les utilisateurs passés hors ligne du fait de cette purge
+     */
+    Set<String> reapExpiredSessions();
+}
@@ -47,6 +47,7 @@ public class ProjetB2BService {
     private final TacheProjetRepository tacheRepository;
     private final DocumentProjetRepository documentRepository;
     private final MessageProjetRepository messageRepository;
+    private final ContactGraphService contactGraphService;
 
     @Value("${app.upload.dir:uploads/projets-b2b}")
     private String uploadDir;
@@ -96,6 +97,7 @@ public class ProjetB2BService {
         }
 
         projetRepository.save(projet);
+        invalidateContacts(projet);
         log.info("Projet B2B créé: {} par {}", projet.getNom(), username);
 
         return ApiResponse.success("Projet créé avec succès", projet);
@@ -209,6 +211,7 @@ public class ProjetB2BService {
             throw new ForbiddenException("Seul le créateur peut supprimer le projet");
         }
 
+        invalidateContacts(projet);
         projetRepository.delete(projet);
         log.info("Projet {} supprimé par {}", projetId, username);
 
@@ -233,6 +236,7 @@ public class ProjetB2BService {
 
         projet.addParticipant(participant);
         projetRepository.save(projet);
+        invalidateContacts(projet);
         projet.getPartenaires().size();
         log.info("Participant {} ajouté au projet {}", participantId, projetId);
 
@@ -256,6 +260,7 @@ public class ProjetB2BService {
 
         projet.removeParticipant(participant);
         projetRepository.save(projet);
+        invalidateContacts(projet, participant);
         projet.getPartenaires().size();
         log.info("Participant {} retiré du projet {}", participantId, projetId);
 
@@ -313,6 +318,7 @@ public class ProjetB2BService {
 
         projet.addPartenaire(partenaire);
         projetRepository.save(projet);
+        invalidateContacts(projet);
         projet.getPartenaires().size();
 
         log.info("Partenaire '{}' ajouté au projet {} (mode: {})", nom, projetId,
@@ -337,12 +343,15 @@ public class ProjetB2BService {
         // Si le partenaire est un utilisateur de la plateforme, on lui retire aussi
         // l'accès au projet (sauf si c'est le créateur).
         Long uid = partenaire.getUtilisateurId();
+        List<User> removed = new ArrayList<>();
         if (uid != null && !uid.equals(projet.getCreateur().getId())) {
-            userRepository.findById(uid).ifPresent(projet::removeParticipant);
+            userRepository.findById(uid).ifPresent(removed::add);
+            removed.forEach(projet::removeParticipant);
         }
 
         projet.removePartenaire(partenaire);
         projetRepository.save(projet);
+        invalidateContacts(projet, removed.toArray(User[]::new));
 
         log.info("Partenaire {} retiré du projet {}", partenaireId, projetId);
         return ApiResponse.success("Partenaire retiré", projet);
@@ -682,6 +691,17 @@ public class ProjetB2BService {
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
     }
 
+    // Les membres du projet ont changé : graphe des contacts (présence) à recalculer
+    private void invalidateContacts(ProjetB2B projet, User... formerMembers) {
+        List<String> usernames = new ArrayList<>();
+        usernames.add(projet.getCreateur().getUsername());
+        projet.getParticipants().forEach(p -> usernames.add(p.getUsername()));
+        for (User former : formerMembers) {
+            usernames.add(former.getUsername());
+        }
+        contactGraphService.invalidate(usernames);
+    }
+
     private ProjetB2B getProjetWithAccessCheck(Long projetId, Long userId) {
         ProjetB2B projet = projetRepository.findById(projetId)
                 .orElseThrow(() -> new ResourceNotFoundException("Projet non trouvé"));
@@ -18,6 +18,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +30,9 @@ public class PublicationService {
     private final PublicationRepository publicationRepository;
     private final UserRepository        userRepository;
 
+    private static final int SEARCH_DEFAULT_LIMIT = 50;
+    private static final int SEARCH_MAX_LIMIT     = 100;
+
     // ─── Créer ──────────────────────────────────────────────────────────────
     @Transactional
     public ApiResponse<PublicationResponse> createPublication(
@@ -86,11 +91,39 @@ public class PublicationService {
     }
 
     // ─── Recherche ───────────────────────────────────────────────────────────
+    // Index plein texte, mêmes règles de visibilité que le feed, par pertinence.
+    // Sans terme indexable (< 3 caractères) : aucun résultat plutôt qu'un scan.
     @Transactional(readOnly = true)
-    public List<PublicationResponse> search(String q) {
-        List<Publication> pubs = publicationRepository.search(q);
-        pubs.forEach(Publication::initTransientFields);
-        return pubs.stream().map(this::toResponse).collect(Collectors.toList());
+    public List<PublicationResponse> search(String username, String q, Integer limit) {
+        FullTextQuery query = FullTextQuery.parse(q);
+        if (query.isEmpty()) return List.of();
+
+        User user = getUser(username);
+        int size = (limit == null || limit <= 0)
+                ? SEARCH_DEFAULT_LIMIT
+                : Math.min(limit, SEARCH_MAX_LIMIT);
+
+        List<Long> ids;
+        if (user instanceof Entreprise entreprise) {
+            ids = publicationRepository.searchIdsVisiblePourType(
+                    query.toBooleanMode(), normaliserType(entreprise.getTypeEntreprise()), size);
+        } else if (user instanceof Particulier) {
+            ids = publicationRepository.searchIdsVisiblePourParticulier(query.toBooleanMode(), size);
+        } else {
+            ids = publicationRepository.searchIdsPubliees(query.toBooleanMode(), size);
+        }
+        if (ids.isEmpty()) return List.of();
+
+        // Rétablir l'ordre de pertinence perdu par le IN
+        Map<Long, Publication> byId = publicationRepository.findAllWithAuteur(ids).stream()
+                .collect(Collectors.toMap(Publication::getId, p -> p));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .peek(Publication::initTransientFields)
+                .map(this::toResponse)
+                .collect(Collectors.toList());
     }
 
     // ─── Supprimer (archiver) ────────────────────────────────────────────────
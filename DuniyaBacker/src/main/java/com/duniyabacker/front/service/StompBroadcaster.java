@@ -0,0 +1,102 @@
+package com.duniyabacker.front.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+
+/**
+ * Envoi STOMP à partir de charges utiles pré-sérialisées (EncodedPayload).
+ *
+ * Usage : encode() une fois par événement, puis autant d'envois que de
+ * destinations. Remplace convertAndSend(objet), qui relance la conversion
+ * Jackson à chaque destination pour un contenu identique.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    public EncodedPayload encode(Object payload) {
+        try {
+            return new EncodedPayload(objectMapper.writeValueAsBytes(payload));
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException(
+                    "Sérialisation JSON impossible : " + payload.getClass().getSimpleName(), e);
+        }
+    }
+
+    public void send(String destination, EncodedPayload payload) {
+        messagingTemplate.send(destination, toMessage(payload, null));
+    }
+
+    public void sendToUser(String username, String destination, EncodedPayload payload) {
+        messagingTemplate.send(userDestination(username, destination), toMessage(payload, null));
+    }
+
+    /**
+     * Envoi à une seule session STOMP de l'utilisateur (pas à ses autres onglets).
+     */
+    public void sendToSession(String username, String sessionId, String destination, EncodedPayload payload) {
+        messagingTemplate.send(userDestination(username, destination), toMessage(payload, sessionId));
+    }
+
+    /**
+     * Même charge utile vers la queue personnelle de plusieurs utilisateurs.
+     * Un échec de livraison n'interrompt pas les envois suivants.
+     *
+     * @return le nombre d'envois en échec
+     */
+    public int sendToUsers(Collection<String> usernames, String destination, EncodedPayload payload) {
+        int failures = 0;
+        for (String username : usernames) {
+            try {
+                sendToUser(username, destination, payload);
+            } catch (MessagingException e) {
+                failures++;
+                log.warn("Message {} non délivré à {}: {}", destination, username, e.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Message construit directement, sans passer par les convertisseurs :
+     * convertAndSend(byte[], Map) prendrait la Map pour des en-têtes STOMP
+     * natifs et le ByteArrayMessageConverter poserait application/octet-stream
+     * (trames BINARY sur /ws-native). Le content-type JSON réel garde des
+     * trames texte. Un message par envoi : le template le fige à l'envoi ;
+     * seul le tableau d'octets est partagé.
+     */
+    private Message<byte[]> toMessage(EncodedPayload payload, String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (sessionId != null) {
+            headers.setSessionId(sessionId);
+        }
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload.json(), headers.getMessageHeaders());
+    }
+
+    // Même résolution que convertAndSendToUser : /user/{username}{destination}
+    private String userDestination(String username, String destination) {
+        return messagingTemplate.getUserDestinationPrefix()
+                + StringUtils.replace(username, "/", "%2F")
+                + destination;
+    }
+}
@@ -0,0 +1,138 @@
+package com.duniyabacker.front.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Cache mémoire borné (taille + TTL) partagé par les caches applicatifs :
+ * principaux (UserPrincipalCache), tokens vérifiés (JwtService), graphe des
+ * contacts (ContactGraphService) et membres des conversations
+ * (ConversationMembershipCache).
+ *
+ * Plein, il purge d'abord les entrées expirées puis libère de la place sans
+ * ordre particulier plutôt que de grossir. Les invalidations sont rejouées
+ * après la fin de la transaction en cours : une lecture concurrente a pu
+ * remettre en cache une valeur relue avant le commit. Le propriétaire
+ * appelle purgeExpired() depuis sa propre tâche @Scheduled.
+ */
+public class TtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    /**
+     * @param maxSize   nombre maximal d'entrées ; nul ou négatif, rien n'est mis en cache
+     * @param ttlMillis durée de vie de put(key, value) ; nulle ou négative, seul
+     *                  put(key, value, expiresAt) écrit dans le cache
+     */
+    public TtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // =========================================================================
+    // Lecture / écriture
+    // =========================================================================
+
+    /**
+     * @return la valeur en cache, ou null si absente ou expirée
+     */
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        put(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    // Expiration propre à l'entrée (ex : celle du token)
+    public void put(K key, V value, long expiresAt) {
+        if (key == null || value == null || maxSize <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            purgeExpired(now);
+
+            // Toujours plein : on libère de la place plutôt que de grossir
+            Iterator<K> it = entries.keySet().iterator();
+            while (entries.size() >= maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    // =========================================================================
+    // Invalidation
+    // =========================================================================
+
+    public void invalidate(K key) {
+        if (key != null) {
+            invalidateAll(List.of(key));
+        }
+    }
+
+    public void invalidateAll(Collection<K> keys) {
+        List<K> targets = List.copyOf(keys);
+        afterTransaction(() -> targets.forEach(entries::remove));
+    }
+
+    public void invalidateIf(Predicate<V> predicate) {
+        afterTransaction(() -> entries.values().removeIf(entry -> predicate.test(entry.value())));
+    }
+
+    public void purgeExpired() {
+        purgeExpired(System.currentTimeMillis());
+    }
+
+    private void purgeExpired(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    // Exécutée tout de suite, puis rejouée à la fin de la transaction en cours
+    private void afterTransaction(Runnable removal) {
+        removal.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removal.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.config.ChatSchedulerConfig;
+import com.duniyabacker.front.dto.response.ChatNotification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Indicateur de frappe avec limitation côté serveur.
+ *
+ * Le client envoie un chat.typing à chaque frappe ; seul le premier est
+ * relayé à la conversation. Un chat.stopTyping reçu moins de
+ * app.chat.typing.throttle-ms après le début est différé jusqu'à la fin de
+ * l'intervalle, et annulé si l'utilisateur reprend la frappe entre-temps :
+ * au plus une paire début/fin par intervalle et par (utilisateur,
+ * conversation). Un début sans fin (onglet fermé) est clos après
+ * app.chat.typing.expiry-ms sans activité.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TypingIndicatorService {
+
+    private static final String USER_TYPING = "USER_TYPING";
+    private static final String USER_STOP_TYPING = "USER_STOP_TYPING";
+
+    private final ConversationMembershipCache membershipCache;
+    private final StompBroadcaster stompBroadcaster;
+
+    // Fins de frappe différées
+    @Qualifier(ChatSchedulerConfig.CHAT_TASK_SCHEDULER)
+    private final TaskScheduler taskScheduler;
+
+    @Value("${app.chat.typing.throttle-ms:3000}")
+    private long throttleMs;
+
+    @Value("${app.chat.typing.expiry-ms:10000}")
+    private long expiryMs;
+
+    private record TypingKey(String username, Long conversationId) {}
+
+    // Frappe annoncée à la conversation (début envoyé, fin pas encore)
+    private static final class TypingState {
+        final long startSentAt;
+        volatile long lastActivityAt;
+        ScheduledFuture<?> pendingStop;
+
+        TypingState(long now) {
+            this.startSentAt = now;
+            this.lastActivityAt = now;
+        }
+    }
+
+    private final Map<TypingKey, TypingState> states = new ConcurrentHashMap<>();
+
+    // =========================================================================
+    // Frames clients
+    // =========================================================================
+
+    public void typing(String username, Long conversationId) {
+        if (!membershipCache.isParticipant(conversationId, username)) {
+            log.debug("Frappe ignorée : {} n'est pas membre de la conversation {}", username, conversationId);
+            return;
+        }
+
+        TypingKey key = new TypingKey(username, conversationId);
+        long now = System.currentTimeMillis();
+        boolean[] started = {false};
+
+        states.compute(key, (k, state) -> {
+            if (state == null) {
+                started[0] = true;
+                return new TypingState(now);
+            }
+            // Reprise avant l'envoi différé de la fin : ni fin ni nouveau début
+            if (state.pendingStop != null) {
+                state.pendingStop.cancel(false);
+                state.pendingStop = null;
+            }
+            state.lastActivityAt = now;
+            return state;
+        });
+
+        if (started[0]) {
+            broadcast(key, USER_TYPING);
+        }
+    }
+
+    public void stopTyping(String username, Long conversationId) {
+        TypingKey key = new TypingKey(username, conversationId);
+        long now = System.currentTimeMillis();
+        boolean[] stopNow = {false};
+
+        // Pas d'état = début jamais relayé (non membre) : rien à clore
+        states.computeIfPresent(key, (k, state) -> {
+            long delay = state.startSentAt + throttleMs - now;
+            if (delay <= 0) {
+                stopNow[0] = true;
+                return null;
+            }
+            if (state.pendingStop == null) {
+                state.pendingStop = taskScheduler.schedule(
+                        () -> flushStop(key, state), Instant.ofEpochMilli(now + delay));
+            }
+            return state;
+        });
+
+        if (stopNow[0]) {
+            broadcast(key, USER_STOP_TYPING);
+        }
+    }
+
+    // =========================================================================
+    // Fins différées / expirées
+    // =========================================================================
+
+    private void flushStop(TypingKey key, TypingState expected) {
+        // remove(key, value) : un nouveau cycle de frappe ne doit pas être clos
+        if (states.remove(key, expected)) {
+            broadcast(key, USER_STOP_TYPING);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.typing.cleanup-ms:5000}")
+    public void expireStaleTyping() {
+        long threshold = System.currentTimeMillis() - expiryMs;
+
+        List<TypingKey> expired = new ArrayList<>();
+        states.forEach((key, state) -> {
+            if (state.lastActivityAt < threshold && states.remove(key, state)) {
+                expired.add(key);
+            }
+        });
+        expired.forEach(key -> broadcast(key, USER_STOP_TYPING));
+    }
+
+    private void broadcast(TypingKey key, String type) {
+        ChatNotification notification = ChatNotification.builder()
+                .type(type)
+                .conversationId(key.conversationId())
+                .username(key.username())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        stompBroadcaster.send(
+                WebSocketConfig.CONVERSATION_TOPIC_PREFIX + key.conversationId(),
+                stompBroadcaster.encode(notification));
+    }
+}
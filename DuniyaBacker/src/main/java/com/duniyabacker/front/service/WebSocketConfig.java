@@ -2,28 +2,148 @@ package com.duniyabacker.front.service;
 
 import com.duniyabacker.front.security.JwtChannelInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSocketMessageBroker
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    // Segments séparés par des points : le plugin STOMP de RabbitMQ refuse
+    // les noms /topic/ contenant un autre "/"
+    public static final String CONVERSATION_TOPIC_PREFIX = "/topic/conversation.";
+
     private final JwtChannelInterceptor jwtChannelInterceptor;
 
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
 
+    // "simple" : broker en mémoire (un seul nœud) ; "relay" : broker STOMP externe
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.virtual-host:/}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${app.websocket.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${app.websocket.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${app.websocket.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${app.websocket.broker.relay.system-heartbeat-send-ms:10000}")
+    private long relayHeartbeatSendMs;
+
+    @Value("${app.websocket.broker.relay.system-heartbeat-receive-ms:10000}")
+    private long relayHeartbeatReceiveMs;
+
+    // Threads du canal broker : en mode relay, tout le trafic sortant vers le broker y passe
+    @Value("${app.websocket.broker.relay.channel-core-pool-size:4}")
+    private int relayChannelCorePoolSize;
+
+    @Value("${app.websocket.broker.relay.channel-max-pool-size:16}")
+    private int relayChannelMaxPoolSize;
+
+    // Canaux client : entrant (frames des clients) et sortant (vers les sessions)
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // Transport : au-delà de ces limites d'envoi, la session lente est fermée
+    // (SESSION_NOT_RELIABLE) au lieu de bloquer un thread du canal sortant
+    @Value("${app.websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.transport.time-to-first-message-ms:60000}")
+    private int timeToFirstMessageMs;
+
+    // Heartbeats STOMP du broker simple : [envoyés par le serveur, attendus du client]
+    @Value("${app.websocket.heartbeat.server-ms:10000}")
+    private long heartbeatServerMs;
+
+    @Value("${app.websocket.heartbeat.client-ms:10000}")
+    private long heartbeatClientMs;
+
+    private TaskScheduler heartbeatScheduler;
+
+    // Endpoint natif : compression permessage-deflate négociée avec le navigateur
+    @Value("${app.websocket.native.compression:true}")
+    private boolean nativeCompression;
+
+    // @Lazy : le scheduler est déclaré par la configuration STOMP elle-même
+    @Autowired
+    public void setHeartbeatScheduler(
+            @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler heartbeatScheduler) {
+        this.heartbeatScheduler = heartbeatScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Activer un simple broker en mémoire pour envoyer des messages
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            configureBrokerRelay(config);
+        } else {
+            // Activer un simple broker en mémoire pour envoyer des messages.
+            // Heartbeats : une session qui ne donne plus signe de vie (socket
+            // à moitié ouverte sur réseau mobile) est fermée par le broker
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatServerMs, heartbeatClientMs})
+                    .setTaskScheduler(heartbeatScheduler);
+        }
+
+        // Destinations à points (/topic/conversation.{id}), identiques en
+        // mode simple et relais
+        config.setPathMatcher(new AntPathMatcher("."));
 
         // Préfixe pour les messages envoyés depuis le client
         config.setApplicationDestinationPrefixes("/app");
@@ -32,16 +152,103 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    /**
+     * Broker STOMP externe (RabbitMQ avec le plugin STOMP, ActiveMQ...) : le
+     * fan-out n'est plus limité à une JVM et plusieurs nœuds backend peuvent
+     * servir les mêmes conversations. Les destinations /user/** et le registre
+     * des sessions utilisateur sont partagés entre nœuds via le broker.
+     */
+    private void configureBrokerRelay(MessageBrokerRegistry config) {
+        config.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(relayHost)
+                .setRelayPort(relayPort)
+                .setVirtualHost(relayVirtualHost)
+                .setClientLogin(relayClientLogin)
+                .setClientPasscode(relayClientPasscode)
+                .setSystemLogin(relaySystemLogin)
+                .setSystemPasscode(relaySystemPasscode)
+                .setSystemHeartbeatSendInterval(relayHeartbeatSendMs)
+                .setSystemHeartbeatReceiveInterval(relayHeartbeatReceiveMs)
+                // Message vers un utilisateur connecté sur un autre nœud
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                // Sessions utilisateur des autres nœuds (SimpUserRegistry multi-serveurs)
+                .setUserRegistryBroadcast("/topic/simp-user-registry");
+
+        config.configureBrokerChannel()
+                .taskExecutor()
+                .corePoolSize(relayChannelCorePoolSize)
+                .maxPoolSize(relayChannelMaxPoolSize);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Endpoint WebSocket natif, sans l'encapsulation SockJS : utilisé en
+        // priorité par les navigateurs qui supportent WebSocket. Les messages
+        // partent en trames texte tant que leur content-type n'est pas
+        // application/octet-stream (StompBroadcaster pose application/json)
+        registry.addEndpoint("/ws-native")
+                .setHandshakeHandler(nativeHandshakeHandler())
+                .setAllowedOrigins(allowedOrigins.split(","));
+
         // Endpoint WebSocket avec support SockJS comme fallback
         registry.addEndpoint("/ws")
                 .setAllowedOrigins(allowedOrigins.split(","))
                 .withSockJS();
+
+        // Trames d'une même session traitées dans l'ordre malgré le pool
+        // inbound : un SUBSCRIBE est enregistré avant le traitement du suivant
+        // (indice RESYNC de /app/chat.sync, instantané de /app/presence)
+        registry.setPreserveReceiveOrder(true);
+    }
+
+    /**
+     * Le conteneur (Tomcat) sait négocier permessage-deflate : les frames
+     * STOMP (JSON très redondant) sont alors compressées sur le fil. La
+     * compression coûte du CPU et de la mémoire par session ;
+     * app.websocket.native.compression=false la retire de la négociation.
+     */
+    private DefaultHandshakeHandler nativeHandshakeHandler() {
+        return new DefaultHandshakeHandler() {
+            @Override
+            protected List<WebSocketExtension> filterRequestedExtensions(
+                    ServerHttpRequest request,
+                    List<WebSocketExtension> requestedExtensions,
+                    List<WebSocketExtension> supportedExtensions) {
+                List<WebSocketExtension> accepted =
+                        super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+                if (nativeCompression) {
+                    return accepted;
+                }
+                return accepted.stream()
+                        .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                        .toList();
+            }
+        };
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(jwtChannelInterceptor);
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .setTimeToFirstMessage(timeToFirstMessageMs);
     }
 }
\ No newline at end of file
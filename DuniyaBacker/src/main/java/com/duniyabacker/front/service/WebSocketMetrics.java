@@ -0,0 +1,102 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.config.ChatFanoutConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Métriques de la couche WebSocket :
+ *  - profondeur de file et threads actifs des canaux entrant, sortant,
+ *    broker et du pool de fan-out du chat ;
+ *  - utilisateurs connectés ;
+ *  - sessions fermées pour consommateur lent (limite d'envoi dépassée).
+ */
+@Component
+@Slf4j
+public class WebSocketMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final SimpUserRegistry userRegistry;
+    private final Map<String, ThreadPoolTaskExecutor> executors;
+    private final Counter slowConsumerDisconnects;
+
+    public WebSocketMetrics(
+            MeterRegistry meterRegistry,
+            SimpUserRegistry userRegistry,
+            @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+            @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor,
+            @Qualifier("brokerChannelExecutor") Executor brokerExecutor,
+            @Qualifier(ChatFanoutConfig.CHAT_FANOUT_EXECUTOR) Executor fanoutExecutor
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.userRegistry = userRegistry;
+
+        // Le canal broker n'a pas de pool avec le broker simple : seuls les
+        // ThreadPoolTaskExecutor exposent une file mesurable
+        Map<String, ThreadPoolTaskExecutor> pools = new LinkedHashMap<>();
+        addPool(pools, "inbound", inboundExecutor);
+        addPool(pools, "outbound", outboundExecutor);
+        addPool(pools, "broker", brokerExecutor);
+        addPool(pools, "chat-fanout", fanoutExecutor);
+        this.executors = pools;
+
+        this.slowConsumerDisconnects = Counter.builder("websocket.sessions.slow_consumer_closed")
+                .description("Sessions fermées car le client ne consommait pas assez vite")
+                .register(meterRegistry);
+    }
+
+    private static void addPool(Map<String, ThreadPoolTaskExecutor> pools, String channel, Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pools.put(channel, pool);
+        }
+    }
+
+    @PostConstruct
+    void registerGauges() {
+        executors.forEach((channel, executor) -> {
+            Gauge.builder("websocket.executor.queue.size", executor,
+                            e -> e.getThreadPoolExecutor().getQueue().size())
+                    .description("Tâches en attente dans le pool")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+
+            Gauge.builder("websocket.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                    .description("Threads occupés dans le pool")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        });
+
+        Gauge.builder("websocket.users", userRegistry, SimpUserRegistry::getUserCount)
+                .description("Utilisateurs avec au moins une session WebSocket sur ce nœud")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Quand le tampon d'envoi d'une session dépasse send-buffer-size-limit
+     * pendant plus de send-time-limit-ms, Spring ferme la session avec
+     * SESSION_NOT_RELIABLE : les autres sessions ne sont pas bloquées et le
+     * client se reconnecte puis rattrape son retard via RESYNC.
+     */
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(event.getCloseStatus())) {
+            slowConsumerDisconnects.increment();
+            log.warn("Session WebSocket {} fermée : consommateur trop lent ({})",
+                    event.getSessionId(), event.getUser() != null ? event.getUser().getName() : "anonyme");
+        }
+    }
+}
@@ -1,22 +1,38 @@
 package com.duniyabacker.front.service;
 
-import com.duniyabacker.front.dto.response.ChatNotification;
+import com.duniyabacker.front.config.ChatSchedulerConfig;
+import com.duniyabacker.front.dto.response.PresenceResponse;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import java.security.Principal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  * Détecte automatiquement les connexions/déconnexions WebSocket (fermeture
  * d'onglet incluse) pour tenir à jour la présence en ligne des utilisateurs,
  * sans dépendre d'un signal explicite envoyé par le frontend.
+ *
+ * Les changements d'état ne sont envoyés qu'aux contacts de l'utilisateur,
+ * après une courte fenêtre d'anti-rebond : un rechargement d'onglet
+ * (déconnexion puis reconnexion immédiate) ne produit aucun événement.
  */
 @Component
 @RequiredArgsConstructor
@@ -24,7 +40,23 @@ import java.time.LocalDateTime;
 public class WebSocketPresenceListener {
 
     private final PresenceService presenceService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ContactGraphService contactGraphService;
+    private final StompBroadcaster stompBroadcaster;
+    private final SimpUserRegistry userRegistry;
+    private final MeterRegistry meterRegistry;
+
+    // Publications différées (anti-rebond)
+    @Qualifier(ChatSchedulerConfig.CHAT_TASK_SCHEDULER)
+    private final TaskScheduler taskScheduler;
+
+    @Value("${app.presence.debounce-ms:3000}")
+    private long debounceMs;
+
+    // Publication différée en attente, par utilisateur
+    private final Map<String, PendingPublication> pendingPublications = new ConcurrentHashMap<>();
+
+    // Sessions absentes du registre STOMP au passage précédent du reaper
+    private Set<String> suspectSessions = new HashSet<>();
 
     @EventListener
     public void handleSessionConnected(SessionConnectedEvent event) {
@@ -40,7 +72,7 @@ public class WebSocketPresenceListener {
         log.info("Session WebSocket connectée: {} (session={})", user.getName(), sessionId);
 
         if (justCameOnline) {
-            broadcastStatus(user.getName(), "USER_ONLINE");
+            schedulePublication(user.getName(), true);
         }
     }
 
@@ -55,17 +87,128 @@ public class WebSocketPresenceListener {
 
         presenceService.userDisconnected(sessionId).ifPresent(username -> {
             log.info("Utilisateur passé hors ligne: {}", username);
-            broadcastStatus(username, "USER_OFFLINE");
+            schedulePublication(username, false);
+        });
+    }
+
+    // Sessions de nœuds tombés : personne d'autre ne signalera leur déconnexion
+    @Scheduled(fixedDelayString = "${app.presence.reaper-ms:30000}")
+    public void reapExpiredSessions() {
+        presenceService.reapExpiredSessions().forEach(username -> {
+            log.info("Utilisateur passé hors ligne (session expirée): {}", username);
+            schedulePublication(username, false);
+        });
+    }
+
+    /**
+     * Rapproche la présence des sessions STOMP réellement ouvertes. Une
+     * session fermée sans SessionDisconnectEvent (socket coupée, broker qui
+     * ferme une session muette) garderait sinon l'utilisateur en ligne.
+     * Une session n'est retirée qu'après deux passages consécutifs hors du
+     * registre : elle a pu s'ouvrir entre les deux lectures.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.heartbeat.reaper-ms:60000}")
+    public void reapIdleSessions() {
+        Set<String> liveSessions = new HashSet<>();
+        userRegistry.getUsers().forEach(user ->
+                user.getSessions().forEach(session -> liveSessions.add(session.getId())));
+
+        Set<String> missing = new HashSet<>(presenceService.localSessionIds());
+        missing.removeAll(liveSessions);
+
+        Set<String> confirmed = new HashSet<>(missing);
+        confirmed.retainAll(suspectSessions);
+        missing.removeAll(confirmed);
+        suspectSessions = missing;
+
+        if (confirmed.isEmpty()) {
+            return;
+        }
+
+        confirmed.forEach(sessionId -> presenceService.userDisconnected(sessionId).ifPresent(username -> {
+            log.info("Utilisateur passé hors ligne (session inactive): {}", username);
+            schedulePublication(username, false);
+        }));
+
+        meterRegistry.counter("websocket.sessions.reaped").increment(confirmed.size());
+        log.info("Présence : {} session(s) WebSocket inactive(s) retirée(s)", confirmed.size());
+    }
+
+    // =========================================================================
+    // Anti-rebond
+    // =========================================================================
+
+    /**
+     * (Re)programme la publication de l'état de l'utilisateur après une
+     * transition signalée par le PresenceStore (partagé entre nœuds : le
+     * nœud qui ferme la dernière session publie, même si un autre nœud
+     * avait annoncé la connexion). Une nouvelle transition pendant la
+     * fenêtre repousse la publication ; l'état publié est relu dans le
+     * store au moment de l'envoi.
+     */
+    private void schedulePublication(String username, boolean online) {
+        pendingPublications.compute(username, (key, previous) -> {
+            boolean stateBefore = !online;
+            if (previous != null) {
+                previous.future.cancel(false);
+                stateBefore = previous.stateBefore;
+            }
+            PendingPublication next = new PendingPublication(username, stateBefore);
+            next.future = taskScheduler.schedule(next, Instant.now().plusMillis(debounceMs));
+            return next;
         });
     }
 
-    private void broadcastStatus(String username, String type) {
-        ChatNotification notification = ChatNotification.builder()
-                .type(type)
-                .username(username)
+    private void publish(PendingPublication pending) {
+        // Remplacée entre-temps par une transition plus récente
+        if (!pendingPublications.remove(pending.username, pending)) {
+            return;
+        }
+
+        try {
+            boolean online = presenceService.isOnline(pending.username);
+
+            // Revenu à l'état d'avant la fenêtre (rechargement d'onglet) : rien à envoyer
+            if (online != pending.stateBefore) {
+                broadcastStatus(pending.username, online);
+            }
+        } catch (Exception e) {
+            log.warn("Publication de présence impossible pour {}: {}", pending.username, e.getMessage());
+        }
+    }
+
+    /** Publication en attente ; stateBefore = état avant la première transition de la fenêtre. */
+    private final class PendingPublication implements Runnable {
+
+        private final String username;
+        private final boolean stateBefore;
+        private volatile ScheduledFuture<?> future;
+
+        private PendingPublication(String username, boolean stateBefore) {
+            this.username = username;
+            this.stateBefore = stateBefore;
+        }
+
+        @Override
+        public void run() {
+            publish(this);
+        }
+    }
+
+    /**
+     * Envoie le changement d'état aux seuls contacts de l'utilisateur
+     * (conversations et projets B2B communs), sur leur queue personnelle,
+     * au lieu de le diffuser à tous les connectés via /topic/public.
+     */
+    private void broadcastStatus(String username, boolean online) {
+        PresenceResponse diff = PresenceResponse.builder()
+                .type("PRESENCE_DIFF")
+                .users(Map.of(username, online))
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        messagingTemplate.convertAndSend("/topic/public", notification);
+        // Une seule sérialisation quel que soit le nombre de contacts
+        stompBroadcaster.sendToUsers(
+                contactGraphService.getContacts(username), "/queue/presence", stompBroadcaster.encode(diff));
     }
 }
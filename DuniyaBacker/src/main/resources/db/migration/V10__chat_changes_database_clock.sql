@@ -0,0 +1,10 @@
+-- =============================================================================
+-- Date des changements du journal posée par la base et non par le nœud qui
+-- les insère : la fenêtre de stabilisation du sync token (ChatService.sync)
+-- se mesure sur la même horloge, quel que soit le décalage entre nœuds.
+-- =============================================================================
+
+UPDATE chat_changes SET created_at = CURRENT_TIMESTAMP(6) WHERE created_at IS NULL;
+
+ALTER TABLE chat_changes
+    MODIFY created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
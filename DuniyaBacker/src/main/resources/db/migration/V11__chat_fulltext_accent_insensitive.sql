@@ -0,0 +1,11 @@
+-- =============================================================================
+-- Recherche plein texte du chat insensible aux accents, comme celle du
+-- marketplace (V5) : FullTextQuery retire les accents des termes, "ete"
+-- doit trouver "été" quelle que soit la collation par défaut de la base.
+-- =============================================================================
+
+ALTER TABLE messages
+    MODIFY content TEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL;
+
+ALTER TABLE conversations
+    MODIFY name VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL;
@@ -0,0 +1,15 @@
+-- =============================================================================
+-- Index des requêtes chaudes du chat (MessageRepository, états de participant)
+--
+-- Les tables et les index déclarés par @Index/@UniqueConstraint sont créés par
+-- Hibernate (ddl-auto: update) avant l'exécution de ces migrations.
+-- =============================================================================
+
+-- Non lus d'une conversation hors expéditeur : countUnreadMessages,
+-- countUnreadMessagesByConversation, markAllAsRead, accusés de lecture
+CREATE INDEX idx_messages_conversation_unread
+    ON messages (conversation_id, is_read, sender_id);
+
+-- Badge global (sumUnreadCount) : lu entièrement dans l'index
+CREATE INDEX idx_participant_state_user_unread
+    ON conversation_participant_state (user_id, unread_count);
@@ -0,0 +1,27 @@
+-- =============================================================================
+-- Clé de paire des conversations privées existantes (colonne private_pair_key
+-- et index unique créés par Hibernate)
+--
+-- Si une même paire a plusieurs conversations privées (créations concurrentes
+-- avant la contrainte), seule la plus ancienne reçoit la clé : c'est elle que
+-- la recherche renverra, les autres restent accessibles depuis la liste.
+-- =============================================================================
+
+UPDATE conversations c
+JOIN (
+    SELECT pairs.conversation_id,
+           pairs.pair_key,
+           ROW_NUMBER() OVER (PARTITION BY pairs.pair_key ORDER BY pairs.conversation_id) AS rang
+    FROM (
+        SELECT cp.conversation_id,
+               CONCAT(MIN(cp.user_id), ':', MAX(cp.user_id)) AS pair_key
+        FROM conversation_participants cp
+        JOIN conversations conv ON conv.id = cp.conversation_id
+        WHERE conv.is_group = false
+        GROUP BY cp.conversation_id
+        HAVING COUNT(*) = 2
+    ) pairs
+) ranked ON ranked.conversation_id = c.id
+SET c.private_pair_key = ranked.pair_key
+WHERE ranked.rang = 1
+  AND c.private_pair_key IS NULL;
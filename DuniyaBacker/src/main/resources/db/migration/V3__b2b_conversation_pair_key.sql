@@ -0,0 +1,39 @@
+-- =============================================================================
+-- Clé de paire des conversations B2B existantes (colonne b2b_pair_key et index
+-- unique créés par Hibernate), à la place de la recherche LIKE 'B2B::%'
+--
+-- La paire est celle des deux entreprises participantes ; pour un contact
+-- initié par un particulier, celle du créateur et de l'unique entreprise.
+-- En cas de doublons, seule la plus ancienne conversation reçoit la clé.
+-- =============================================================================
+
+UPDATE conversations c
+JOIN (
+    SELECT ranked.conversation_id, ranked.pair_key
+    FROM (
+        SELECT pairs.conversation_id,
+               pairs.pair_key,
+               ROW_NUMBER() OVER (PARTITION BY pairs.pair_key ORDER BY pairs.conversation_id) AS rang
+        FROM (
+            SELECT conv.id AS conversation_id,
+                   CASE
+                       WHEN COUNT(ent.id) = 2
+                           THEN CONCAT(MIN(ent.id), ':', MAX(ent.id))
+                       WHEN COUNT(ent.id) = 1 AND emp.id IS NULL AND conv.created_by <> MIN(ent.id)
+                           THEN CONCAT(LEAST(MIN(ent.id), conv.created_by), ':',
+                                       GREATEST(MIN(ent.id), conv.created_by))
+                   END AS pair_key
+            FROM conversations conv
+            JOIN conversation_participants cp ON cp.conversation_id = conv.id
+            LEFT JOIN entreprises ent ON ent.id = cp.user_id
+            LEFT JOIN employes emp ON emp.id = conv.created_by
+            WHERE conv.is_group = true
+              AND conv.name LIKE 'B2B::%'
+            GROUP BY conv.id, conv.created_by, emp.id
+        ) pairs
+        WHERE pairs.pair_key IS NOT NULL
+    ) ranked
+    WHERE ranked.rang = 1
+) keyed ON keyed.conversation_id = c.id
+SET c.b2b_pair_key = keyed.pair_key
+WHERE c.b2b_pair_key IS NULL;
@@ -0,0 +1,9 @@
+-- =============================================================================
+-- Recherche plein texte du chat (MATCH ... AGAINST en mode booléen). InnoDB
+-- maintient ces index dans la transaction des envois, modifications et
+-- suppressions de messages : pas d'indexation séparée à orchestrer.
+-- =============================================================================
+
+CREATE FULLTEXT INDEX ftx_messages_content ON messages (content);
+
+CREATE FULLTEXT INDEX ftx_conversations_name ON conversations (name);
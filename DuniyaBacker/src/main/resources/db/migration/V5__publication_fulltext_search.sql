@@ -0,0 +1,14 @@
+-- =============================================================================
+-- Recherche plein texte du marketplace (remplace LIKE '%q%' sur contenu).
+-- Collation explicite accent- et casse-insensible : "resume" trouve "Résumé",
+-- comme le pliage des accents de MeetingService.genererRoomName.
+-- L'index (titre) seul sert à pondérer le titre dans le classement.
+-- =============================================================================
+
+ALTER TABLE publications
+    MODIFY titre VARCHAR(300) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci,
+    MODIFY contenu TEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL;
+
+CREATE FULLTEXT INDEX ftx_publications_titre_contenu ON publications (titre, contenu);
+
+CREATE FULLTEXT INDEX ftx_publications_titre ON publications (titre);
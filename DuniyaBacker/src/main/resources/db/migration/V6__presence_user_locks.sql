@@ -0,0 +1,13 @@
+-- =============================================================================
+-- Verrou par utilisateur du store de présence partagé (DatabasePresenceStore).
+--
+-- Connexions, déconnexions et purge d'un même utilisateur prennent ce verrou
+-- avant de toucher presence_sessions : le passage en ligne / hors ligne est
+-- décidé par une seule transaction à la fois, tous nœuds confondus.
+-- =============================================================================
+
+CREATE TABLE presence_user_locks (
+    username   VARCHAR(100) NOT NULL,
+    locked_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (username)
+);
@@ -0,0 +1,13 @@
+-- =============================================================================
+-- Filigranes de lecture posés avant la validation de upToMessageId : un id
+-- d'une autre conversation, ou supérieur à tout message de celle-ci (ex :
+-- Long.MAX_VALUE), bloquait toute lecture ultérieure. Remis à "aucun"
+-- pour que la prochaine lecture reparte normalement.
+-- =============================================================================
+
+UPDATE conversation_participant_state s
+LEFT JOIN messages m ON m.id = s.last_read_message_id
+SET s.last_read_message_id = NULL
+WHERE s.last_read_message_id IS NOT NULL
+  AND ((m.id IS NULL AND s.last_read_message_id > COALESCE(s.last_message_id, 0))
+       OR m.conversation_id <> s.conversation_id);
@@ -0,0 +1,35 @@
+-- =============================================================================
+-- États de participant manquants (conversations antérieures à la table, ou
+-- participants ajoutés avant leur initialisation systématique) : créés une
+-- fois ici plutôt qu'à la volée dans les lectures de la liste.
+-- Filigrane de lecture : dernier message envoyé par le participant ou déjà
+-- marqué lu ; non lus : messages des autres au-delà de ce filigrane.
+-- INSERT IGNORE : une ligne créée entre-temps par l'application est conservée.
+-- =============================================================================
+
+INSERT IGNORE INTO conversation_participant_state
+    (conversation_id, user_id, last_read_message_id, unread_count, last_message_id, last_message_at)
+SELECT b.conversation_id,
+       b.user_id,
+       b.last_read_id,
+       (SELECT COUNT(*) FROM messages m
+        WHERE m.conversation_id = b.conversation_id
+          AND m.sender_id <> b.user_id
+          AND m.id > COALESCE(b.last_read_id, 0)),
+       last.id,
+       last.created_at
+FROM (
+    SELECT cp.conversation_id,
+           cp.user_id,
+           (SELECT MAX(m.id) FROM messages m
+            WHERE m.conversation_id = cp.conversation_id
+              AND (m.sender_id = cp.user_id OR m.is_read = TRUE)) AS last_read_id,
+           (SELECT MAX(m.id) FROM messages m
+            WHERE m.conversation_id = cp.conversation_id) AS last_id
+    FROM conversation_participants cp
+    WHERE NOT EXISTS (
+        SELECT 1 FROM conversation_participant_state s
+        WHERE s.conversation_id = cp.conversation_id
+          AND s.user_id = cp.user_id)
+) b
+LEFT JOIN messages last ON last.id = b.last_id;
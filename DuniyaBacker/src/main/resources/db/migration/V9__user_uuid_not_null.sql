@@ -0,0 +1,14 @@
+-- =============================================================================
+-- Identité stable des comptes (users.uuid, colonne ajoutée nullable par
+-- Hibernate) : comptes antérieurs à la colonne complétés, puis colonne
+-- obligatoire et unique. User.equals/hashCode reposent sur cette valeur.
+--
+-- '' couvre une colonne ajoutée NOT NULL par une version précédente du
+-- mapping : MySQL remplit alors les lignes existantes avec une chaîne vide.
+-- =============================================================================
+
+UPDATE users SET uuid = UUID() WHERE uuid IS NULL OR uuid = '';
+
+ALTER TABLE users MODIFY uuid VARCHAR(36) NOT NULL;
+
+CREATE UNIQUE INDEX uk_users_uuid ON users (uuid);
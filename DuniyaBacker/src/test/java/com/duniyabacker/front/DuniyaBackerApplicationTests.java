@@ -1,8 +1,11 @@
 package com.duniyabacker.front;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+// Contexte complet : MySQL, SMTP et secrets de l'environnement requis
+@Tag("integration")
 @SpringBootTest
 class DuniyaBackerApplicationTests {
 
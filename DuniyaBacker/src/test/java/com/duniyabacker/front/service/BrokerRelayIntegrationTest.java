@@ -0,0 +1,193 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.DuniyaBackerApplication;
+import com.duniyabacker.front.dto.response.ChatNotification;
+import com.duniyabacker.front.entity.Role;
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.repository.UserRepository;
+import com.duniyabacker.front.security.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mode relais (app.websocket.broker.mode=relay) : deux nœuds backend dans
+ * la même JVM, chacun sur sa base H2, reliés au même broker STOMP. Un
+ * événement publié sur le nœud A doit atteindre un client connecté au
+ * nœud B, sur un topic de conversation comme sur sa queue personnelle.
+ *
+ * Broker requis (STOMP_RELAY_HOST / STOMP_RELAY_PORT, localhost:61613 par
+ * défaut ; le service rabbitmq du docker-compose ne publie pas ce port) :
+ * docker run -d -p 61613:61613 rabbitmq:3.13 sh -c
+ *   "rabbitmq-plugins enable --offline rabbitmq_stomp && exec rabbitmq-server"
+ * puis ./gradlew test -Pintegration --tests '*BrokerRelayIntegrationTest'
+ */
+@Tag("integration")
+class BrokerRelayIntegrationTest {
+
+    private static final String JWT_SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private WebSocketStompClient stompClient;
+    private ThreadPoolTaskScheduler clientScheduler;
+    private StompSession session;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("relay-node-a");
+        nodeB = startNode("relay-node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    // Arguments de ligne de commande : prioritaires sur application.yml
+    private static ConfigurableApplicationContext startNode(String name) {
+        return new SpringApplicationBuilder(DuniyaBackerApplication.class).run(
+                "--spring.profiles.active=h2",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + name
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=VALUE,KEY,YEAR,MONTH,DAY",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=2525",
+                "--spring.mail.username=test@duniya.test",
+                "--spring.mail.password=",
+                "--jwt.secret=" + JWT_SECRET,
+                "--app.frontend-url=http://localhost",
+                "--app.cors.allowed-origins=http://localhost",
+                "--app.upload.dir=build/test-uploads",
+                "--app.websocket.broker.mode=relay");
+    }
+
+    @BeforeEach
+    void connectToNodeB() throws Exception {
+        User user = new User();
+        user.setUsername("alice@duniya.test");
+        user.setEmail("alice@duniya.test");
+        user.setPassword("secret");
+        user.setTelephone("+22300000000");
+        user.setRole(Role.PARTICULIER);
+        user.setEnabled(true);
+        nodeB.getBean(UserRepository.class).save(user);
+        String token = nodeB.getBean(JwtService.class).generateToken(user);
+
+        clientScheduler = new ThreadPoolTaskScheduler();
+        clientScheduler.initialize();
+
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(new ObjectMapper().findAndRegisterModules());
+        stompClient.setMessageConverter(converter);
+        stompClient.setTaskScheduler(clientScheduler);
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+
+        session = stompClient.connectAsync(
+                        "ws://localhost:" + port(nodeB) + "/ws-native",
+                        new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() { })
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        session.setAutoReceipt(true);
+    }
+
+    @AfterEach
+    void disconnect() {
+        if (session != null && session.isConnected()) {
+            session.disconnect();
+        }
+        stompClient.stop();
+        clientScheduler.shutdown();
+        nodeB.getBean(UserRepository.class).deleteAll();
+    }
+
+    @Test
+    void conversationTopicReachesClientsOfAnotherNode() throws Exception {
+        String topic = WebSocketConfig.CONVERSATION_TOPIC_PREFIX + 42;
+        BlockingQueue<ChatNotification> received = subscribe(topic);
+
+        StompBroadcaster broadcasterA = nodeA.getBean(StompBroadcaster.class);
+        broadcasterA.send(topic, broadcasterA.encode(ChatNotification.builder()
+                .type("NEW_MESSAGE")
+                .conversationId(42L)
+                .build()));
+
+        ChatNotification notification = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(notification).isNotNull();
+        assertThat(notification.getType()).isEqualTo("NEW_MESSAGE");
+        assertThat(notification.getConversationId()).isEqualTo(42L);
+    }
+
+    @Test
+    void userQueueReachesASessionOpenedOnAnotherNode() throws Exception {
+        BlockingQueue<ChatNotification> received = subscribe("/user/queue/messages");
+
+        StompBroadcaster broadcasterA = nodeA.getBean(StompBroadcaster.class);
+        broadcasterA.sendToUser("alice@duniya.test", "/queue/messages", broadcasterA.encode(ChatNotification.builder()
+                .type("MESSAGE_EDITED")
+                .conversationId(7L)
+                .build()));
+
+        ChatNotification notification = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(notification).isNotNull();
+        assertThat(notification.getType()).isEqualTo("MESSAGE_EDITED");
+    }
+
+    // Abonnement confirmé par le broker (RECEIPT) avant de publier
+    private BlockingQueue<ChatNotification> subscribe(String destination) throws InterruptedException {
+        BlockingQueue<ChatNotification> received = new LinkedBlockingQueue<>();
+        StompSession.Subscription subscription = session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatNotification.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((ChatNotification) payload);
+            }
+        });
+
+        CountDownLatch confirmed = new CountDownLatch(1);
+        subscription.addReceiptTask(confirmed::countDown);
+        assertThat(confirmed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        return received;
+    }
+
+    private static int port(ConfigurableApplicationContext node) {
+        return node.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+}
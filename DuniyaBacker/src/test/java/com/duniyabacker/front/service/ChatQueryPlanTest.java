@@ -0,0 +1,159 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.entity.chat.Conversation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans d'exécution (EXPLAIN, H2 en mode MySQL) des requêtes chaudes du chat,
+ * écrites en SQL comme les génèrent les repositories : chaque table doit être
+ * lue par un index avec condition, jamais parcourue entièrement.
+ *
+ * Les index de V1 (Flyway, désactivé sur H2) sont créés ici ; ceux déclarés
+ * par @Index le sont par Hibernate.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class ChatQueryPlanTest {
+
+    private static final String V1_MIGRATION = "db/migration/V1__chat_hot_path_indexes.sql";
+
+    // Accès à une table dans le plan H2 : /* public.index: condition */
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\*\\s*(public\\.[^*]*?)\\s*\\*/",
+            Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private TestEntityManager em;
+
+    private User alice;
+    private User bob;
+    private Conversation conversation;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // DDL en premier : H2 valide la transaction en cours à chaque DDL
+        applyMigration(V1_MIGRATION);
+
+        ChatTestData data = new ChatTestData(em);
+        alice = data.user("plan-alice");
+        bob = data.user("plan-bob");
+        conversation = data.group("Plans", alice, bob);
+        for (int i = 0; i < 5; i++) {
+            User other = data.user("plan-contact-" + i);
+            Conversation group = data.group("Plans " + i, alice, other);
+            for (int m = 0; m < 10; m++) {
+                data.message(group, m % 2 == 0 ? alice : other, "message " + m);
+            }
+        }
+        for (int m = 0; m < 20; m++) {
+            data.message(conversation, m % 2 == 0 ? alice : bob, "message " + m);
+        }
+    }
+
+    @Test
+    void unreadCountUsesAnIndex() {
+        assertIndexedPlan("""
+                SELECT COUNT(*) FROM messages
+                WHERE conversation_id = %d AND sender_id <> %d AND is_read = FALSE
+                """.formatted(conversation.getId(), alice.getId()));
+    }
+
+    @Test
+    void messageHistoryPageUsesAnIndex() {
+        assertIndexedPlan("""
+                SELECT id FROM messages
+                WHERE conversation_id = %d
+                ORDER BY created_at DESC, id DESC
+                LIMIT 50
+                """.formatted(conversation.getId()));
+    }
+
+    @Test
+    void participantCheckUsesAnIndex() {
+        assertIndexedPlan("""
+                SELECT COUNT(*) FROM conversations c
+                JOIN conversation_participants p ON p.conversation_id = c.id
+                WHERE c.id = %d AND p.user_id = %d
+                """.formatted(conversation.getId(), alice.getId()));
+    }
+
+    @Test
+    void conversationListOfAUserUsesAnIndex() {
+        assertIndexedPlan("""
+                SELECT c.id FROM conversations c
+                JOIN conversation_participants p ON p.conversation_id = c.id
+                WHERE p.user_id = %d
+                ORDER BY c.updated_at DESC
+                LIMIT 20
+                """.formatted(alice.getId()));
+    }
+
+    @Test
+    void unreadBadgeAndParticipantStateUseAnIndex() {
+        assertIndexedPlan("""
+                SELECT COALESCE(SUM(unread_count), 0) FROM conversation_participant_state
+                WHERE user_id = %d
+                """.formatted(alice.getId()));
+        assertIndexedPlan("""
+                SELECT id FROM conversation_participant_state
+                WHERE conversation_id = %d AND user_id = %d
+                """.formatted(conversation.getId(), alice.getId()));
+    }
+
+    // =========================================================================
+    // Outils
+    // =========================================================================
+
+    private void assertIndexedPlan(String sql) {
+        String plan = (String) em.getEntityManager()
+                .createNativeQuery("EXPLAIN " + sql)
+                .getSingleResult();
+
+        List<String> accesses = new ArrayList<>();
+        Matcher matcher = TABLE_ACCESS.matcher(plan);
+        while (matcher.find()) {
+            accesses.add(matcher.group(1));
+        }
+
+        assertThat(accesses).as("plan :%n%s", plan)
+                .isNotEmpty()
+                .allSatisfy(access -> {
+                    assertThat(access.toLowerCase(Locale.ROOT)).doesNotContain("tablescan");
+                    // Index parcouru sans condition = parcours complet déguisé
+                    assertThat(access).contains(":");
+                });
+    }
+
+    // Rejouable : le schéma H2 est partagé par les contextes de test
+    private void applyMigration(String location) throws IOException {
+        String script = new ClassPathResource(location).getContentAsString(StandardCharsets.UTF_8);
+        String withoutComments = script.lines()
+                .filter(line -> !line.trim().startsWith("--"))
+                .reduce("", (a, b) -> a + "\n" + b);
+
+        Arrays.stream(withoutComments.split(";"))
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .map(statement -> statement.replaceFirst("(?i)^CREATE INDEX", "CREATE INDEX IF NOT EXISTS"))
+                .forEach(statement -> em.getEntityManager().createNativeQuery(statement).executeUpdate());
+    }
+}
@@ -0,0 +1,60 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.security.UserPrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * ChatService sur les vrais repositories (H2, profil h2) ; présence, e-mail
+ * et caches sont simulés. Les utilisateurs sont relus en base à chaque appel.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(ChatService.class)
+abstract class ChatServiceJpaTestBase {
+
+    @Autowired
+    protected ChatService chatService;
+
+    @Autowired
+    protected TestEntityManager em;
+
+    @MockitoBean
+    protected PresenceService presenceService;
+
+    @MockitoBean
+    protected EmailService emailService;
+
+    @MockitoBean
+    protected UserPrincipalCache userPrincipalCache;
+
+    @MockitoBean
+    protected ContactGraphService contactGraphService;
+
+    @MockitoBean
+    protected ConversationMembershipCache membershipCache;
+
+    protected ChatTestData data;
+
+    @BeforeEach
+    void setUpChatService() {
+        data = new ChatTestData(em);
+
+        when(userPrincipalCache.get(anyString())).thenReturn(Optional.empty());
+        when(presenceService.isOnline(anyCollection())).thenReturn(Set.of());
+    }
+}
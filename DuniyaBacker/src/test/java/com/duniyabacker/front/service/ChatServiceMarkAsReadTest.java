@@ -0,0 +1,68 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.entity.chat.Conversation;
+import com.duniyabacker.front.entity.chat.ConversationParticipantState;
+import com.duniyabacker.front.entity.chat.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lecture par ids : le filigrane du lecteur n'avance que sur le préfixe
+ * continu des messages lus, les messages non listés restent non lus.
+ */
+class ChatServiceMarkAsReadTest extends ChatServiceJpaTestBase {
+
+    private User alice;
+    private Conversation conversation;
+    private Message first;
+    private Message second;
+    private Message third;
+
+    @BeforeEach
+    void setUp() {
+        alice = data.user("alice");
+        User bob = data.user("bob");
+        conversation = data.group("Projet", alice, bob);
+
+        first  = data.message(conversation, bob, "un");
+        second = data.message(conversation, bob, "deux");
+        third  = data.message(conversation, bob, "trois");
+    }
+
+    @Test
+    void messagesAfterAGapStayUnread() {
+        chatService.markAsRead(alice.getUsername(), conversation.getId(),
+                List.of(first.getId(), third.getId()), null);
+
+        ConversationParticipantState state = data.state(conversation, alice);
+        assertThat(state.getLastReadMessageId()).isEqualTo(first.getId());
+        assertThat(state.getUnreadCount()).isEqualTo(2);
+    }
+
+    @Test
+    void watermarkDoesNotMoveWhenTheOldestUnreadIsNotListed() {
+        chatService.markAsRead(alice.getUsername(), conversation.getId(),
+                List.of(third.getId()), null);
+
+        ConversationParticipantState state = data.state(conversation, alice);
+        assertThat(state.getLastReadMessageId()).isNull();
+        assertThat(state.getUnreadCount()).isEqualTo(3);
+    }
+
+    @Test
+    void gapFilledLaterMovesTheWatermarkToTheEnd() {
+        chatService.markAsRead(alice.getUsername(), conversation.getId(),
+                List.of(first.getId(), third.getId()), null);
+        chatService.markAsRead(alice.getUsername(), conversation.getId(),
+                List.of(second.getId(), third.getId()), null);
+
+        ConversationParticipantState state = data.state(conversation, alice);
+        assertThat(state.getLastReadMessageId()).isEqualTo(third.getId());
+        assertThat(state.getUnreadCount()).isZero();
+    }
+}
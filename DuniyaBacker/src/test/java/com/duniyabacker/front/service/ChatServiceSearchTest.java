@@ -0,0 +1,52 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.dto.response.ConversationResponse;
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.entity.chat.Conversation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recherche de conversations par nom (chemin LIKE, seul disponible sur H2) :
+ * limitée aux conversations de l'utilisateur, paginée par curseur sur l'id.
+ */
+class ChatServiceSearchTest extends ChatServiceJpaTestBase {
+
+    @Test
+    void searchIsPagedByConversationIdCursor() {
+        User alice = data.user("alice");
+        User bob = data.user("bob");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(data.group("Équipe " + i, alice, bob).getId());
+        }
+        em.clear();
+
+        List<ConversationResponse> first = chatService.searchConversations("alice", "pe", null, 3);
+        List<ConversationResponse> second = chatService.searchConversations(
+                "alice", "pe", first.get(first.size() - 1).getId(), 3);
+
+        assertThat(first).extracting(ConversationResponse::getId)
+                .containsExactly(ids.get(4), ids.get(3), ids.get(2));
+        assertThat(second).extracting(ConversationResponse::getId)
+                .containsExactly(ids.get(1), ids.get(0));
+    }
+
+    @Test
+    void otherUsersConversationsAreNotReturned() {
+        User alice = data.user("alice");
+        User bob = data.user("bob");
+        User carol = data.user("carol");
+        Conversation shared = data.group("Projet commun", alice, bob);
+        data.group("Projet privé", bob, carol);
+        em.clear();
+
+        assertThat(chatService.searchConversations("alice", "je", null, null))
+                .extracting(ConversationResponse::getId)
+                .containsExactly(shared.getId());
+    }
+}
@@ -0,0 +1,69 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.entity.chat.Conversation;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Liste des conversations (endpoint le plus sollicité) : le nombre de
+ * requêtes SQL ne dépend pas du nombre de conversations de la page.
+ */
+class ChatServiceStatementCountTest extends ChatServiceJpaTestBase {
+
+    // Utilisateur, page d'ids, conversations + participants, états, derniers messages
+    private static final long MAX_STATEMENTS = 5;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void conversationListStatementCountDoesNotGrowWithPageSize() {
+        User few  = withConversations("few", 3);
+        User many = withConversations("many", 30);
+
+        long fewStatements  = statementsForConversationList(few);
+        long manyStatements = statementsForConversationList(many);
+
+        assertThat(manyStatements).isEqualTo(fewStatements);
+        assertThat(manyStatements).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    private User withConversations(String username, int count) {
+        User owner = data.user(username);
+        for (int i = 0; i < count; i++) {
+            User other = data.user(username + "-contact-" + i);
+            Conversation conversation = data.group(username + " groupe " + i, owner, other);
+            data.message(conversation, other, "Bonjour " + i);
+        }
+        return owner;
+    }
+
+    private long statementsForConversationList(User user) {
+        em.clear();
+        statistics.clear();
+
+        var page = chatService.getConversations(user.getUsername(), PageRequest.of(0, 50));
+
+        assertThat(page.getContent()).allSatisfy(c -> {
+            assertThat(c.getParticipants()).hasSize(2);
+            assertThat(c.getLastMessage()).isNotNull();
+            assertThat(c.getUnreadCount()).isEqualTo(1);
+        });
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,86 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.dto.response.ChatSyncResponse;
+import com.duniyabacker.front.dto.response.MessageResponse;
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.entity.chat.Conversation;
+import com.duniyabacker.front.entity.chat.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import static com.duniyabacker.front.entity.chat.ChatChange.ChangeType.CONVERSATION_UPDATED;
+import static com.duniyabacker.front.entity.chat.ChatChange.ChangeType.MESSAGE_CREATED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Synchronisation incrémentale de bout en bout sur la base : le token ne
+ * dépasse jamais un changement encore dans la fenêtre de stabilisation, et
+ * ces changements sont renvoyés tant qu'ils y restent.
+ */
+@TestPropertySource(properties = "app.chat.sync.settle-seconds=5")
+class ChatServiceSyncTest extends ChatServiceJpaTestBase {
+
+    private User alice;
+    private long baseChange;
+    private long settledChange;
+    private long recentChange;
+    private Message settled;
+    private Message recent;
+
+    @BeforeEach
+    void setUp() {
+        alice = data.user("alice");
+        User bob = data.user("bob");
+        Conversation conversation = data.group("Projet", alice, bob);
+
+        baseChange = data.change(CONVERSATION_UPDATED, conversation, null);
+        settled = data.message(conversation, bob, "ancien");
+        settledChange = data.change(MESSAGE_CREATED, conversation, settled);
+        recent = data.message(conversation, bob, "récent");
+        recentChange = data.change(MESSAGE_CREATED, conversation, recent);
+
+        data.age(baseChange, 60);
+        data.age(settledChange, 60);
+        em.clear();
+    }
+
+    @Test
+    void tokenStopsBeforeChangesStillInTheSettleWindow() {
+        ChatSyncResponse first = chatService.sync(alice.getUsername(), baseChange, null);
+
+        assertThat(first.isFullResync()).isFalse();
+        assertThat(first.getMessages()).extracting(MessageResponse::getId)
+                .containsExactly(settled.getId(), recent.getId());
+        assertThat(first.getSyncToken()).isEqualTo(settledChange);
+        assertThat(chatService.getCurrentSyncToken()).isEqualTo(settledChange);
+
+        // Le changement récent est renvoyé tant qu'il n'est pas stabilisé
+        ChatSyncResponse second = chatService.sync(alice.getUsername(), first.getSyncToken(), null);
+
+        assertThat(second.getMessages()).extracting(MessageResponse::getId)
+                .containsExactly(recent.getId());
+        assertThat(second.getSyncToken()).isEqualTo(settledChange);
+    }
+
+    @Test
+    void tokenAdvancesOnceTheWindowHasPassed() {
+        data.age(recentChange, 60);
+        em.clear();
+
+        ChatSyncResponse response = chatService.sync(alice.getUsername(), settledChange, null);
+
+        assertThat(response.getMessages()).extracting(MessageResponse::getId)
+                .containsExactly(recent.getId());
+        assertThat(response.getSyncToken()).isEqualTo(recentChange);
+        assertThat(chatService.getCurrentSyncToken()).isEqualTo(recentChange);
+    }
+
+    @Test
+    void missingOrPurgedTokenAsksForAFullResync() {
+        ChatSyncResponse response = chatService.sync(alice.getUsername(), null, null);
+
+        assertThat(response.isFullResync()).isTrue();
+        assertThat(response.getSyncToken()).isEqualTo(settledChange);
+    }
+}
@@ -0,0 +1,125 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.entity.Role;
+import com.duniyabacker.front.entity.User;
+import com.duniyabacker.front.entity.chat.ChatChange;
+import com.duniyabacker.front.entity.chat.ChatChange.ChangeType;
+import com.duniyabacker.front.entity.chat.Conversation;
+import com.duniyabacker.front.entity.chat.ConversationParticipantState;
+import com.duniyabacker.front.entity.chat.Message;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+/**
+ * Jeux de données du chat pour les tests JPA (profil h2) : utilisateurs,
+ * conversations, messages et états de participant cohérents entre eux.
+ */
+class ChatTestData {
+
+    private final TestEntityManager em;
+
+    ChatTestData(TestEntityManager em) {
+        this.em = em;
+    }
+
+    User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@duniya.test");
+        user.setPassword("secret");
+        user.setTelephone("+22300000000");
+        user.setRole(Role.PARTICULIER);
+        user.setEnabled(true);
+        return em.persist(user);
+    }
+
+    Conversation group(String name, User... members) {
+        Conversation conversation = Conversation.builder()
+                .name(name)
+                .isGroup(true)
+                .createdBy(members[0])
+                .build();
+        for (User member : members) {
+            conversation.addParticipant(member);
+        }
+        em.persist(conversation);
+
+        for (User member : members) {
+            em.persist(ConversationParticipantState.builder()
+                    .conversation(conversation)
+                    .user(member)
+                    .build());
+        }
+        return conversation;
+    }
+
+    // Message + mise à jour des états comme ChatService.registerNewMessage
+    Message message(Conversation conversation, User sender, String content) {
+        Message message = Message.builder()
+                .content(content)
+                .type(Message.MessageType.TEXT)
+                .sender(sender)
+                .conversation(conversation)
+                .build();
+        em.persist(message);
+        em.flush();
+
+        List<ConversationParticipantState> states = em.getEntityManager()
+                .createQuery("""
+                        SELECT s FROM ConversationParticipantState s
+                        WHERE s.conversation.id = :conversationId
+                        """, ConversationParticipantState.class)
+                .setParameter("conversationId", conversation.getId())
+                .getResultList();
+        for (ConversationParticipantState state : states) {
+            state.setLastMessageId(message.getId());
+            state.setLastMessageAt(message.getCreatedAt());
+            if (state.getUser().getId().equals(sender.getId())) {
+                state.setLastReadMessageId(message.getId());
+            } else {
+                state.setUnreadCount(state.getUnreadCount() + 1);
+            }
+        }
+        em.flush();
+        return message;
+    }
+
+    // État du participant relu en base
+    ConversationParticipantState state(Conversation conversation, User user) {
+        em.flush();
+        em.clear();
+        return em.getEntityManager()
+                .createQuery("""
+                        SELECT s FROM ConversationParticipantState s
+                        WHERE s.conversation.id = :conversationId
+                          AND s.user.id = :userId
+                        """, ConversationParticipantState.class)
+                .setParameter("conversationId", conversation.getId())
+                .setParameter("userId", user.getId())
+                .getSingleResult();
+    }
+
+    // Entrée du journal de synchronisation (created_at posé par la base)
+    long change(ChangeType type, Conversation conversation, Message message) {
+        ChatChange change = em.persistFlushFind(ChatChange.builder()
+                .type(type)
+                .conversationId(conversation.getId())
+                .messageId(message != null ? message.getId() : null)
+                .build());
+        return change.getId();
+    }
+
+    // Recule la date d'un changement hors de la fenêtre de stabilisation
+    void age(long changeId, int seconds) {
+        em.getEntityManager()
+                .createNativeQuery("""
+                        UPDATE chat_changes
+                        SET created_at = TIMESTAMPADD(SECOND, -:seconds, LOCALTIMESTAMP(6))
+                        WHERE id = :id
+                        """)
+                .setParameter("seconds", seconds)
+                .setParameter("id", changeId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,94 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.dto.response.ChatNotification;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Charge utile sérialisée une fois par StompBroadcaster et partagée, sans
+ * copie, par tous les envois d'un même événement.
+ */
+class EncodedPayloadTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<Message<?>> sent = new ArrayList<>();
+
+    private StompBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        // Canal qui refuse les envois vers "mallory" (échec de livraison)
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination != null && destination.contains("mallory")) {
+                return false;
+            }
+            return sent.add(message);
+        });
+        broadcaster = new StompBroadcaster(template, objectMapper);
+    }
+
+    @Test
+    void encodeProducesTheJacksonDocument() throws Exception {
+        ChatNotification notification = ChatNotification.builder()
+                .type("NEW_MESSAGE")
+                .conversationId(42L)
+                .timestamp(LocalDateTime.of(2025, 1, 2, 3, 4, 5))
+                .build();
+
+        EncodedPayload payload = broadcaster.encode(notification);
+
+        JsonNode json = objectMapper.readTree(payload.json());
+        assertThat(json.get("type").asText()).isEqualTo("NEW_MESSAGE");
+        assertThat(json.get("conversationId").asLong()).isEqualTo(42L);
+        assertThat(payload.size()).isEqualTo(payload.json().length);
+    }
+
+    @Test
+    void everyRecipientSharesTheSameBytesAsJsonText() {
+        EncodedPayload payload = broadcaster.encode(ChatNotification.builder().type("NEW_MESSAGE").build());
+
+        int failures = broadcaster.sendToUsers(List.of("alice", "bob"), "/queue/messages", payload);
+
+        assertThat(failures).isZero();
+        assertThat(sent).hasSize(2).allSatisfy(message -> {
+            assertThat(message.getPayload()).isSameAs(payload.json());
+            assertThat(message.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+                    .hasToString(MimeTypeUtils.APPLICATION_JSON_VALUE);
+        });
+        assertThat(sent).extracting(m -> SimpMessageHeaderAccessor.getDestination(m.getHeaders()))
+                .containsExactly("/user/alice/queue/messages", "/user/bob/queue/messages");
+    }
+
+    @Test
+    void failedDeliveryDoesNotStopTheFanout() {
+        EncodedPayload payload = broadcaster.encode(ChatNotification.builder().type("NEW_MESSAGE").build());
+
+        int failures = broadcaster.sendToUsers(List.of("alice", "mallory", "bob"), "/queue/messages", payload);
+
+        assertThat(failures).isEqualTo(1);
+        assertThat(sent).hasSize(2);
+    }
+
+    @Test
+    void sessionTargetedSendCarriesTheSessionId() {
+        EncodedPayload payload = broadcaster.encode(ChatNotification.builder().type("RESYNC").build());
+
+        broadcaster.sendToSession("alice", "session-1", "/queue/messages", payload);
+
+        assertThat(SimpMessageHeaderAccessor.getSessionId(sent.get(0).getHeaders())).isEqualTo("session-1");
+    }
+}
@@ -0,0 +1,67 @@
+package com.duniyabacker.front.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FullTextQueryTest {
+
+    @Test
+    void booleanOperatorsAreNeutralisedAndTermsRequiredAsPrefixes() {
+        FullTextQuery query = FullTextQuery.parse("réunion -budget +\"projet\" (test)*");
+
+        assertThat(query.toBooleanMode()).isEqualTo("+reunion* +budget* +projet* +test*");
+    }
+
+    @Test
+    void shortTermsAreIgnored() {
+        assertThat(FullTextQuery.parse("de la a").isEmpty()).isTrue();
+        assertThat(FullTextQuery.parse(null).isEmpty()).isTrue();
+        assertThat(FullTextQuery.parse("ok thé").toBooleanMode()).isEqualTo("+the*");
+    }
+
+    @Test
+    void accentsAndSimplePluralsAreRemoved() {
+        assertThat(FullTextQuery.normalize("Résumés")).isEqualTo("resume");
+        assertThat(FullTextQuery.normalize("chevaux")).isEqualTo("chevau");
+        assertThat(FullTextQuery.normalize("classes")).isEqualTo("classe");
+        assertThat(FullTextQuery.normalize("class")).isEqualTo("class");
+        assertThat(FullTextQuery.normalize("prix")).isEqualTo("prix");
+    }
+
+    @Test
+    void duplicateTermsAfterNormalisationAreMerged() {
+        assertThat(FullTextQuery.parse("maison maisons Maison").toBooleanMode()).isEqualTo("+maison*");
+    }
+
+    @Test
+    void termCountIsBounded() {
+        FullTextQuery query = FullTextQuery.parse("un1 un2 un3 un4 un5 un6 un7 un8 un9 un10 un11 un12");
+
+        assertThat(query.toBooleanMode().split(" ")).hasSize(10);
+    }
+
+    @Test
+    void foldingKeepsTheTextLength() {
+        String text = "Çà et là, l'été œuvre";
+
+        assertThat(FullTextQuery.fold(text)).hasSameSizeAs(text).isEqualTo("Ca et la, l'ete œuvre");
+    }
+
+    @Test
+    void highlightMatchesAccentedTextAndKeepsTheOriginal() {
+        FullTextQuery query = FullTextQuery.parse("ete");
+
+        assertThat(query.highlight("Un bel Été <b>chaud</b>"))
+                .isEqualTo("Un bel <mark>Été</mark> &lt;b&gt;chaud&lt;/b&gt;");
+    }
+
+    @Test
+    void longTextIsCutAroundTheFirstMatch() {
+        String text = "x".repeat(300) + " réunion " + "y".repeat(300);
+
+        String snippet = FullTextQuery.parse("reunion").highlight(text);
+
+        assertThat(snippet).startsWith("…").endsWith("…").contains("<mark>réunion</mark>");
+    }
+}
@@ -0,0 +1,92 @@
+package com.duniyabacker.front.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryPresenceStoreTest {
+
+    private final InMemoryPresenceStore store = new InMemoryPresenceStore();
+
+    @Test
+    void onlyFirstSessionAndLastDisconnectAreTransitions() {
+        assertThat(store.addSession("alice", "s1")).isTrue();
+        assertThat(store.addSession("alice", "s2")).isFalse();
+
+        assertThat(store.removeSession("s1")).isEmpty();
+        assertThat(store.isOnline("alice")).isTrue();
+
+        assertThat(store.removeSession("s2")).contains("alice");
+        assertThat(store.isOnline("alice")).isFalse();
+    }
+
+    @Test
+    void unknownOrRepeatedDisconnectIsIgnored() {
+        store.addSession("alice", "s1");
+
+        assertThat(store.removeSession("inconnue")).isEmpty();
+        assertThat(store.removeSession("s1")).contains("alice");
+        assertThat(store.removeSession("s1")).isEmpty();
+    }
+
+    @Test
+    void findOnlineAndLocalSessions() {
+        store.addSession("alice", "s1");
+        store.addSession("bob", "s2");
+        store.addSession("bob", "s3");
+
+        assertThat(store.findOnline(List.of("alice", "bob", "carol"))).containsExactlyInAnyOrder("alice", "bob");
+        assertThat(store.findLocalSessionIds()).containsExactlyInAnyOrder("s1", "s2", "s3");
+        assertThat(store.reapExpiredSessions()).isEmpty();
+    }
+
+    @Test
+    void concurrentReconnectsProduceBalancedTransitions() throws Exception {
+        int threads = 8;
+        int rounds = 1_000;
+        AtomicInteger online = new AtomicInteger();
+        AtomicInteger offline = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        String sessionId = thread + "-" + i;
+                        if (store.addSession("alice", sessionId)) {
+                            online.incrementAndGet();
+                        }
+                        if (store.removeSession(sessionId).isPresent()) {
+                            offline.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Chaque passage en ligne a son passage hors ligne, et l'état final est cohérent
+        assertThat(online.get()).isPositive().isEqualTo(offline.get());
+        assertThat(store.isOnline("alice")).isFalse();
+        assertThat(store.findLocalSessionIds()).isEmpty();
+    }
+}
@@ -0,0 +1,115 @@
+package com.duniyabacker.front.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TtlCacheTest {
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void valuesExpireAfterTheirTtl() {
+        TtlCache<String, String> cache = new TtlCache<>(10, 60_000);
+        cache.put("vivant", "a");
+        cache.put("expiré", "b", System.currentTimeMillis() - 1);
+
+        assertThat(cache.get("vivant")).isEqualTo("a");
+        assertThat(cache.get("expiré")).isNull();
+        assertThat(cache.get(null)).isNull();
+    }
+
+    @Test
+    void sizeIsBounded() {
+        TtlCache<Integer, Integer> cache = new TtlCache<>(3, 60_000);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+
+        long cached = IntStream.range(0, 10).filter(i -> cache.get(i) != null).count();
+        assertThat(cached).isLessThanOrEqualTo(3);
+        assertThat(cache.get(9)).isEqualTo(9);
+    }
+
+    @Test
+    void expiredEntriesAreEvictedBeforeLiveOnes() {
+        TtlCache<String, String> cache = new TtlCache<>(2, 60_000);
+        cache.put("vivant", "a");
+        cache.put("expiré", "b", System.currentTimeMillis() - 1);
+
+        cache.put("nouveau", "c");
+
+        assertThat(cache.get("vivant")).isEqualTo("a");
+        assertThat(cache.get("nouveau")).isEqualTo("c");
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        TtlCache<String, String> noSize = new TtlCache<>(0, 60_000);
+        TtlCache<String, String> noTtl = new TtlCache<>(10, 0);
+        noSize.put("k", "v");
+        noTtl.put("k", "v");
+
+        assertThat(noSize.get("k")).isNull();
+        assertThat(noTtl.get("k")).isNull();
+
+        // Sans TTL par défaut, seule l'expiration explicite écrit
+        noTtl.put("k", "v", System.currentTimeMillis() + 60_000);
+        assertThat(noTtl.get("k")).isEqualTo("v");
+    }
+
+    @Test
+    void invalidationRemovesMatchingEntries() {
+        TtlCache<String, String> cache = new TtlCache<>(10, 60_000);
+        cache.put("a", "garder");
+        cache.put("b", "retirer");
+        cache.put("c", "retirer");
+
+        cache.invalidate("a");
+        assertThat(cache.get("a")).isNull();
+
+        cache.invalidateIf("retirer"::equals);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNull();
+    }
+
+    @Test
+    void invalidationIsReplayedAfterTheTransaction() {
+        TtlCache<String, String> cache = new TtlCache<>(10, 60_000);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.put("k", "ancienne");
+        cache.invalidateAll(List.of("k"));
+        assertThat(cache.get("k")).isNull();
+
+        // Relue par une lecture concurrente avant le commit
+        cache.put("k", "ancienne");
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(cache.get("k")).isNull();
+    }
+
+    @Test
+    void purgeExpiredDropsOnlyExpiredEntries() {
+        TtlCache<String, String> cache = new TtlCache<>(10, 60_000);
+        cache.put("vivant", "a");
+        cache.put("expiré", "b", System.currentTimeMillis() - 1);
+
+        cache.purgeExpired();
+
+        assertThat(cache.get("vivant")).isEqualTo("a");
+    }
+}
@@ -0,0 +1,138 @@
+package com.duniyabacker.front.service;
+
+import com.duniyabacker.front.dto.response.ChatNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Limitation de l'indicateur de frappe : au plus une paire début/fin par
+ * intervalle, fin différée annulée par une reprise de la frappe.
+ */
+@ExtendWith(MockitoExtension.class)
+class TypingIndicatorServiceTest {
+
+    private static final Long CONVERSATION_ID = 42L;
+
+    @Mock
+    private ConversationMembershipCache membershipCache;
+
+    @Mock
+    private StompBroadcaster stompBroadcaster;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private ScheduledFuture<Object> pendingStop;
+
+    private TypingIndicatorService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TypingIndicatorService(membershipCache, stompBroadcaster, taskScheduler);
+        ReflectionTestUtils.setField(service, "throttleMs", 60_000L);
+        ReflectionTestUtils.setField(service, "expiryMs", 60_000L);
+
+        lenient().when(membershipCache.isParticipant(CONVERSATION_ID, "alice")).thenReturn(true);
+        // Le type de la notification tient lieu de charge utile encodée
+        lenient().when(stompBroadcaster.encode(any())).thenAnswer(invocation -> new EncodedPayload(
+                ((ChatNotification) invocation.getArgument(0)).getType().getBytes(StandardCharsets.UTF_8)));
+        lenient().doReturn(pendingStop).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void repeatedTypingFramesAreRelayedOnce() {
+        service.typing("alice", CONVERSATION_ID);
+        service.typing("alice", CONVERSATION_ID);
+        service.typing("alice", CONVERSATION_ID);
+
+        assertThat(sentTypes()).containsExactly("USER_TYPING");
+    }
+
+    @Test
+    void earlyStopIsDeferredToTheEndOfTheInterval() {
+        service.typing("alice", CONVERSATION_ID);
+        service.stopTyping("alice", CONVERSATION_ID);
+
+        assertThat(sentTypes()).containsExactly("USER_TYPING");
+
+        scheduledStop().run();
+
+        assertThat(sentTypes()).containsExactly("USER_TYPING", "USER_STOP_TYPING");
+    }
+
+    @Test
+    void typingAgainCancelsTheDeferredStop() {
+        service.typing("alice", CONVERSATION_ID);
+        service.stopTyping("alice", CONVERSATION_ID);
+        service.typing("alice", CONVERSATION_ID);
+
+        verify(pendingStop).cancel(false);
+        assertThat(sentTypes()).containsExactly("USER_TYPING");
+    }
+
+    @Test
+    void stopAfterTheIntervalIsSentImmediately() {
+        ReflectionTestUtils.setField(service, "throttleMs", 0L);
+
+        service.typing("alice", CONVERSATION_ID);
+        service.stopTyping("alice", CONVERSATION_ID);
+
+        assertThat(sentTypes()).containsExactly("USER_TYPING", "USER_STOP_TYPING");
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void nonMembersAreIgnored() {
+        service.typing("mallory", CONVERSATION_ID);
+        service.stopTyping("mallory", CONVERSATION_ID);
+
+        verify(stompBroadcaster, never()).send(anyString(), any());
+    }
+
+    @Test
+    void staleTypingIsClosedByTheCleanup() {
+        service.typing("alice", CONVERSATION_ID);
+        ReflectionTestUtils.setField(service, "expiryMs", -1L);
+
+        service.expireStaleTyping();
+
+        assertThat(sentTypes()).containsExactly("USER_TYPING", "USER_STOP_TYPING");
+    }
+
+    private Runnable scheduledStop() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(task.capture(), any(Instant.class));
+        return task.getValue();
+    }
+
+    private List<String> sentTypes() {
+        ArgumentCaptor<EncodedPayload> payloads = ArgumentCaptor.forClass(EncodedPayload.class);
+        verify(stompBroadcaster, atLeast(0)).send(
+                eq(WebSocketConfig.CONVERSATION_TOPIC_PREFIX + CONVERSATION_ID), payloads.capture());
+        return payloads.getAllValues().stream()
+                .map(payload -> new String(payload.json(), StandardCharsets.UTF_8))
+                .toList();
+    }
+}